@@ -0,0 +1,100 @@
+/*
+ * @(#) BenchmarkData.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.benchmark;
+
+import io.jstuff.json.JSONFunctions;
+
+/**
+ * Input data shared by the benchmarks.
+ *
+ * @author  Peter Wall
+ */
+public class BenchmarkData {
+
+    public static final String ASCII = "The quick brown fox jumps over the lazy dog 0123456789";
+    public static final String ESCAPES = "line 1\nline 2\t\"quoted\" \\path\\to\\file\r\n\u0001\u001F";
+    public static final String NON_ASCII = "Müller Straße — naïve café 日本語 😀";
+    public static final String LONG = createLong(10_000, false);
+
+    /**
+     * Get the input string for the named input type.
+     *
+     * @param   inputType   the input type
+     * @return              the string
+     */
+    public static String getInput(String inputType) {
+        switch (inputType) {
+            case "ASCII":
+                return ASCII;
+            case "ESCAPES":
+                return ESCAPES;
+            case "NON_ASCII":
+                return NON_ASCII;
+            case "LONG":
+                return LONG;
+        }
+        throw new IllegalArgumentException("Unknown input type: " + inputType);
+    }
+
+    /**
+     * Get the input string for the named input type in JSON form (including enclosing quotes).
+     *
+     * @param   inputType   the input type
+     * @return              the JSON string
+     */
+    public static String getJSONInput(String inputType) {
+        switch (inputType) {
+            case "PLAIN":
+                return JSONFunctions.escapeString(ASCII, true);
+            case "ESCAPED":
+                return JSONFunctions.escapeString(ESCAPES + NON_ASCII, false);
+            case "LONG_PLAIN":
+                return JSONFunctions.escapeString(LONG, true);
+            case "LONG_ESCAPED":
+                return JSONFunctions.escapeString(createLong(10_000, true), false);
+        }
+        throw new IllegalArgumentException("Unknown input type: " + inputType);
+    }
+
+    /**
+     * Create a long string of ASCII text, made up of repeated copies of the ASCII sample separated by spaces or,
+     * optionally, by newline characters (which require escaping).
+     *
+     * @param   length      the length
+     * @param   newlines    if {@code true}, separate the copies by newline characters
+     * @return              the string
+     */
+    private static String createLong(int length, boolean newlines) {
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append(ASCII);
+            sb.append(newlines ? '\n' : ' ');
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+}
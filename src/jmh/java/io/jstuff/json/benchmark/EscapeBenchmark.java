@@ -0,0 +1,141 @@
+/*
+ * @(#) EscapeBenchmark.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.benchmark;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.jstuff.json.JSONEscapeBuffer;
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONUTF8Functions;
+
+/**
+ * Benchmarks for the string escaping functions, covering each of the output forms.
+ *
+ * @author  Peter Wall
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EscapeBenchmark {
+
+    @Param({ "ASCII", "ESCAPES", "NON_ASCII", "LONG" })
+    public String inputType;
+
+    @Param({ "false", "true" })
+    public boolean includeNonASCII;
+
+    private String input;
+    private StringBuilder sb;
+    private StringWriter writer;
+    private IntConsumer consumer;
+    private byte[] bytes;
+    private ByteBuffer directBuffer;
+
+    @Setup
+    public void setup() {
+        input = BenchmarkData.getInput(inputType);
+        sb = new StringBuilder(input.length() * 6 + 2);
+        writer = new StringWriter(input.length() * 6 + 2);
+        consumer = ch -> sb.append((char)ch);
+        bytes = new byte[input.length() * 12 + 2];
+        directBuffer = ByteBuffer.allocateDirect(bytes.length);
+    }
+
+    @Benchmark
+    public StringBuilder appendStringToStringBuilder() throws IOException {
+        sb.setLength(0);
+        JSONFunctions.appendString(sb, input, includeNonASCII);
+        return sb;
+    }
+
+    @Benchmark
+    public StringWriter appendStringToWriter() throws IOException {
+        writer.getBuffer().setLength(0);
+        JSONFunctions.appendString(writer, input, includeNonASCII);
+        return writer;
+    }
+
+    @Benchmark
+    public StringWriter appendStringToWriterUsingEscapeBuffer() throws IOException {
+        writer.getBuffer().setLength(0);
+        JSONEscapeBuffer buffer = JSONEscapeBuffer.local().attach(writer);
+        try {
+            buffer.appendString(input, includeNonASCII);
+        }
+        finally {
+            buffer.release();
+        }
+        return writer;
+    }
+
+    @Benchmark
+    public StringBuilder outputStringToIntConsumer() {
+        sb.setLength(0);
+        JSONFunctions.outputString(input, includeNonASCII, consumer);
+        return sb;
+    }
+
+    @Benchmark
+    public int appendStringToByteArray() {
+        return JSONUTF8Functions.appendString(bytes, 0, input, includeNonASCII);
+    }
+
+    @Benchmark
+    public int appendStringToDirectByteBuffer() {
+        directBuffer.clear();
+        return JSONUTF8Functions.appendString(directBuffer, input, includeNonASCII);
+    }
+
+    @Benchmark
+    public String escapeString() {
+        return JSONFunctions.escapeString(input, includeNonASCII);
+    }
+
+    @Benchmark
+    public String escapeStringUnquoted() {
+        return JSONFunctions.escapeStringUnquoted(input, includeNonASCII);
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * @(#) NumberBenchmark.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.jstuff.json.JSONNumberFunctions;
+import io.jstuff.text.TextMatcher;
+
+/**
+ * Benchmarks for the number parsing and formatting functions, compared with the equivalent JDK functions.
+ *
+ * @author  Peter Wall
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumberBenchmark {
+
+    @Param({ "1234", "-273.15", "6.02214076E23", "0.1234567890123456" })
+    public String number;
+
+    private TextMatcher tm;
+    private double value;
+    private StringBuilder sb;
+
+    @Setup
+    public void setup() {
+        tm = new TextMatcher(number);
+        value = Double.parseDouble(number);
+        sb = new StringBuilder(32);
+    }
+
+    @Benchmark
+    public double parseDouble() {
+        tm.setIndex(0);
+        return JSONNumberFunctions.parseDouble(tm);
+    }
+
+    @Benchmark
+    public double parseDoubleJDK() {
+        tm.setIndex(0);
+        tm.skipToEnd();
+        return Double.parseDouble(tm.getResult());
+    }
+
+    @Benchmark
+    public StringBuilder appendDouble() throws IOException {
+        sb.setLength(0);
+        JSONNumberFunctions.appendDouble(sb, value);
+        return sb;
+    }
+
+    @Benchmark
+    public StringBuilder appendDoubleJDK() {
+        sb.setLength(0);
+        sb.append(Double.toString(value));
+        return sb;
+    }
+
+}
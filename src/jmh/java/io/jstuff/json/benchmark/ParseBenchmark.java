@@ -0,0 +1,86 @@
+/*
+ * @(#) ParseBenchmark.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONUTF8Functions;
+import io.jstuff.text.TextMatcher;
+
+/**
+ * Benchmarks for the string parsing functions, with and without escape sequences.
+ *
+ * @author  Peter Wall
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({ "PLAIN", "ESCAPED", "LONG_PLAIN", "LONG_ESCAPED" })
+    public String inputType;
+
+    private TextMatcher tm;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup() {
+        String json = BenchmarkData.getJSONInput(inputType);
+        tm = new TextMatcher(json);
+        buffer = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public String parseString() {
+        tm.setIndex(1);
+        return JSONFunctions.parseString(tm);
+    }
+
+    @Benchmark
+    public String parseStringUTF8() {
+        buffer.position(1);
+        return JSONUTF8Functions.parseString(buffer);
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * @(#) BulkCharConsumer.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import java.util.function.IntConsumer;
+
+/**
+ * An {@link IntConsumer} that can also accept runs of characters in a single call.  The output functions in
+ * {@link JSONFunctions} that take an {@link IntConsumer} check whether it implements this interface, and if so, they
+ * pass runs of characters that need no escaping in a single operation rather than one character at a time.
+ *
+ * <p>The default implementations of the run methods call {@link #accept(int)} for each character, so an implementing
+ * class need only override them where it can handle a run more efficiently.  Both run methods identify the run by
+ * start and end indexes (the end index being exclusive, as in {@link Appendable#append(CharSequence, int, int)}), not
+ * by offset and length.</p>
+ *
+ * @author  Peter Wall
+ */
+@FunctionalInterface
+public interface BulkCharConsumer extends IntConsumer {
+
+    /**
+     * Accept a run of characters from a {@link CharSequence}.
+     *
+     * @param   cs          the {@link CharSequence}
+     * @param   start       the start index
+     * @param   end         the end index
+     */
+    default void accept(CharSequence cs, int start, int end) {
+        for (int i = start; i < end; i++)
+            accept(cs.charAt(i));
+    }
+
+    /**
+     * Accept a run of characters from a {@code char} array.
+     *
+     * @param   array       the array
+     * @param   start       the start index
+     * @param   end         the end index
+     */
+    default void accept(char[] array, int start, int end) {
+        for (int i = start; i < end; i++)
+            accept(array[i]);
+    }
+
+    /**
+     * Get a {@code BulkCharConsumer} for an {@link IntConsumer}.  If the {@link IntConsumer} is already a
+     * {@code BulkCharConsumer} it is returned unchanged; otherwise it is wrapped in a {@code BulkCharConsumer} that
+     * passes each character separately.
+     *
+     * @param   consumer    the {@link IntConsumer}
+     * @return              the {@code BulkCharConsumer}
+     */
+    static BulkCharConsumer of(IntConsumer consumer) {
+        return consumer instanceof BulkCharConsumer ? (BulkCharConsumer)consumer : consumer::accept;
+    }
+
+    /**
+     * Get a {@code BulkCharConsumer} that appends to a {@link StringBuilder}.
+     *
+     * @param   sb          the {@link StringBuilder}
+     * @return              the {@code BulkCharConsumer}
+     */
+    static BulkCharConsumer of(StringBuilder sb) {
+        return new BulkCharConsumer() {
+            @Override
+            public void accept(int value) {
+                sb.append((char)value);
+            }
+            @Override
+            public void accept(CharSequence cs, int start, int end) {
+                sb.append(cs, start, end);
+            }
+            @Override
+            public void accept(char[] array, int start, int end) {
+                sb.append(array, start, end - start);
+            }
+        };
+    }
+
+}
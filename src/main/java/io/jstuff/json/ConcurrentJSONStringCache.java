@@ -0,0 +1,98 @@
+/*
+ * @(#) ConcurrentJSONStringCache.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A form of {@link JSONStringCache} that may be shared between threads.  The entries are held in an
+ * {@link AtomicReferenceArray}; lookups take no locks, and when the {@link JSONStringCache.Eviction#RETAIN RETAIN}
+ * policy is in effect, a compare-and-set operation ensures that the first string stored in a slot is the one retained.
+ *
+ * @author  Peter Wall
+ */
+public class ConcurrentJSONStringCache extends JSONStringCache {
+
+    /**
+     * Construct a {@code ConcurrentJSONStringCache} with the specified capacity, maximum string length and eviction
+     * policy.
+     *
+     * @param   capacity        the number of entries (rounded up to a power of two)
+     * @param   maxLength       the maximum length of a string to be cached
+     * @param   eviction        the {@link JSONStringCache.Eviction} policy
+     * @throws  IllegalArgumentException  if the capacity or maximum length is not valid
+     */
+    public ConcurrentJSONStringCache(int capacity, int maxLength, Eviction eviction) {
+        super(capacity, maxLength, eviction, AtomicEntries::new);
+    }
+
+    /**
+     * Construct a {@code ConcurrentJSONStringCache} with the specified capacity, and the default maximum string length
+     * and eviction policy.
+     *
+     * @param   capacity        the number of entries (rounded up to a power of two)
+     */
+    public ConcurrentJSONStringCache(int capacity) {
+        this(capacity, DEFAULT_MAX_LENGTH, Eviction.REPLACE);
+    }
+
+    /**
+     * Construct a {@code ConcurrentJSONStringCache} with the default capacity, maximum string length and eviction
+     * policy.
+     */
+    public ConcurrentJSONStringCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * A table of entries held in an {@link AtomicReferenceArray}.
+     */
+    private static final class AtomicEntries implements Entries {
+
+        private final AtomicReferenceArray<String> array;
+
+        AtomicEntries(int size) {
+            array = new AtomicReferenceArray<>(size);
+        }
+
+        @Override
+        public String get(int index) {
+            return array.get(index);
+        }
+
+        @Override
+        public void set(int index, String str) {
+            array.set(index, str);
+        }
+
+        @Override
+        public void add(int index, String str) {
+            array.compareAndSet(index, null, str);
+        }
+
+    }
+
+}
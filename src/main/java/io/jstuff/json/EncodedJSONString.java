@@ -0,0 +1,214 @@
+/*
+ * @(#) EncodedJSONString.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * A string pre-encoded in JSON form (enclosed in double quotes, with escape sequences as required), for use when the
+ * same string (for example, a property name) is output repeatedly.  The encoded form is held both as characters and as
+ * UTF-8 bytes, so that it may be output in a single bulk operation to a character or byte destination.
+ *
+ * <p>Instances of this class are immutable, and may be shared between threads.</p>
+ *
+ * @author  Peter Wall
+ */
+public final class EncodedJSONString {
+
+    private final String string;
+    private final String encoded;
+    private final char[] chars;
+    private final byte[] bytes;
+
+    /**
+     * Construct an {@code EncodedJSONString} from a {@link CharSequence}, escaping characters according to the
+     * specified {@link JSONEscapePolicy}.
+     *
+     * @param   cs          the {@link CharSequence}
+     * @param   policy      the {@link JSONEscapePolicy}
+     * @throws  JSONEscapeException  if the string contains a lone surrogate and the policy is to reject them
+     */
+    public EncodedJSONString(CharSequence cs, JSONEscapePolicy policy) {
+        this.string = cs.toString();
+        encoded = JSONFunctions.escapeString(cs, policy);
+        chars = encoded.toCharArray();
+        bytes = new byte[JSONUTF8Functions.escapedLength(cs, policy) + 2];
+        JSONUTF8Functions.appendString(bytes, 0, cs, policy);
+    }
+
+    /**
+     * Construct an {@code EncodedJSONString} from a {@link CharSequence}, optionally escaping non-ASCII characters.
+     *
+     * @param   cs              the {@link CharSequence}
+     * @param   includeNonASCII if {@code true}, output the characters in the range 0x80 to 0xFFFF unmodified
+     */
+    public EncodedJSONString(CharSequence cs, boolean includeNonASCII) {
+        this(cs, JSONEscapePolicy.of(includeNonASCII));
+    }
+
+    /**
+     * Construct an {@code EncodedJSONString} from a {@link CharSequence}, escaping all non-ASCII characters.
+     *
+     * @param   cs          the {@link CharSequence}
+     */
+    public EncodedJSONString(CharSequence cs) {
+        this(cs, JSONEscapePolicy.DEFAULT);
+    }
+
+    /**
+     * Get the original (unencoded) string.
+     *
+     * @return              the string
+     */
+    public String getString() {
+        return string;
+    }
+
+    /**
+     * Get the number of characters in the encoded form (including the double quotes).
+     *
+     * @return              the number of characters
+     */
+    public int length() {
+        return chars.length;
+    }
+
+    /**
+     * Get the number of bytes in the UTF-8 encoded form (including the double quotes).
+     *
+     * @return              the number of bytes
+     */
+    public int getUTF8Length() {
+        return bytes.length;
+    }
+
+    /**
+     * Append the encoded form to an {@link Appendable}.
+     *
+     * @param   a           the {@link Appendable}
+     * @throws  IOException if thrown by the {@link Appendable}
+     */
+    public void appendTo(Appendable a) throws IOException {
+        if (a instanceof StringBuilder)
+            ((StringBuilder)a).append(chars);
+        else if (a instanceof Writer)
+            ((Writer)a).write(chars);
+        else
+            a.append(encoded);
+    }
+
+    /**
+     * Output the encoded form using an {@link IntConsumer}.  If the {@link IntConsumer} is a {@link BulkCharConsumer},
+     * the characters are passed to it in a single call.
+     *
+     * @param   consumer    the {@link IntConsumer}
+     */
+    public void output(IntConsumer consumer) {
+        if (consumer instanceof BulkCharConsumer)
+            ((BulkCharConsumer)consumer).accept(chars, 0, chars.length);
+        else {
+            for (char ch : chars)
+                consumer.accept(ch);
+        }
+    }
+
+    /**
+     * Copy the UTF-8 encoded form into a byte array.
+     *
+     * @param   array       the byte array
+     * @param   offset      the offset in the array at which to store the bytes
+     * @return              the offset following the last byte stored
+     * @throws  ArrayIndexOutOfBoundsException  if there is insufficient space in the array (nothing will be stored)
+     */
+    public int appendTo(byte[] array, int offset) {
+        if (offset < 0 || offset > array.length - bytes.length)
+            throw new ArrayIndexOutOfBoundsException(offset + bytes.length);
+        System.arraycopy(bytes, 0, array, offset, bytes.length);
+        return offset + bytes.length;
+    }
+
+    /**
+     * Copy the UTF-8 encoded form into a {@link ByteBuffer}, starting at the current position.
+     *
+     * @param   buffer      the {@link ByteBuffer}
+     * @return              the number of bytes stored
+     * @throws  java.nio.BufferOverflowException  if there is insufficient space in the buffer (nothing will be
+     *                      stored)
+     */
+    public int appendTo(ByteBuffer buffer) {
+        buffer.put(bytes);
+        return bytes.length;
+    }
+
+    /**
+     * Write the UTF-8 encoded form to an {@link OutputStream}.
+     *
+     * @param   out         the {@link OutputStream}
+     * @return              the number of bytes written
+     * @throws  IOException if thrown by the {@link OutputStream}
+     */
+    public int writeTo(OutputStream out) throws IOException {
+        out.write(bytes);
+        return bytes.length;
+    }
+
+    /**
+     * Compare this {@code EncodedJSONString} with another object for equality.
+     *
+     * @param   other       the other object
+     * @return              {@code true} if the other object is an {@code EncodedJSONString} with the same encoded form
+     */
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof EncodedJSONString &&
+                encoded.equals(((EncodedJSONString)other).encoded);
+    }
+
+    /**
+     * Get the hash code for this {@code EncodedJSONString}.
+     *
+     * @return              the hash code
+     */
+    @Override
+    public int hashCode() {
+        return encoded.hashCode();
+    }
+
+    /**
+     * Get the encoded form as a {@link String}.
+     *
+     * @return              the encoded form
+     */
+    @Override
+    public String toString() {
+        return encoded;
+    }
+
+}
@@ -0,0 +1,301 @@
+/*
+ * @(#) JSONBatchEscaper.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Escapes a batch of strings into a single contiguous {@code char} array, with a table of offsets to locate each
+ * string.  When the total length of the strings exceeds a threshold, the work is divided among the threads of a
+ * {@link ForkJoinPool}; strings longer than the threshold are themselves divided into segments that are escaped in
+ * parallel.
+ *
+ * <p>The work is performed in two passes: the first calculates the escaped length of each segment (so that the output
+ * array can be allocated at its exact size), and the second stores each segment at its calculated offset.  Because
+ * each segment is stored independently, the result is always identical to that of applying
+ * {@link JSONFunctions#appendString(Appendable, CharSequence, JSONEscapePolicy)} to each string in turn.</p>
+ *
+ * <p>Instances of this class are immutable, and may be shared between threads.</p>
+ *
+ * @author  Peter Wall
+ */
+public final class JSONBatchEscaper {
+
+    public static final int DEFAULT_THRESHOLD = 8192;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final JSONEscapePolicy policy;
+
+    /**
+     * Construct a {@code JSONBatchEscaper} with the specified {@link ForkJoinPool}, threshold and
+     * {@link JSONEscapePolicy}.
+     *
+     * @param   pool        the {@link ForkJoinPool}
+     * @param   threshold   the number of characters below which work will not be divided further
+     * @param   policy      the {@link JSONEscapePolicy}
+     * @throws  IllegalArgumentException  if the threshold is less than 1
+     */
+    public JSONBatchEscaper(ForkJoinPool pool, int threshold, JSONEscapePolicy policy) {
+        if (threshold < 1)
+            throw new IllegalArgumentException("Illegal threshold: " + threshold);
+        this.pool = pool;
+        this.threshold = threshold;
+        this.policy = policy;
+    }
+
+    /**
+     * Construct a {@code JSONBatchEscaper} using the common {@link ForkJoinPool} and the default threshold, with the
+     * specified {@link JSONEscapePolicy}.
+     *
+     * @param   policy      the {@link JSONEscapePolicy}
+     */
+    public JSONBatchEscaper(JSONEscapePolicy policy) {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD, policy);
+    }
+
+    /**
+     * Construct a {@code JSONBatchEscaper} using the common {@link ForkJoinPool}, the default threshold and the default
+     * {@link JSONEscapePolicy}.
+     */
+    public JSONBatchEscaper() {
+        this(JSONEscapePolicy.DEFAULT);
+    }
+
+    /**
+     * Escape an array of strings.
+     *
+     * @param   strings     the strings
+     * @return              the {@link Batch} of escaped strings
+     * @throws  JSONEscapeException  if a string contains a lone surrogate and the policy is to reject them
+     */
+    public Batch escape(CharSequence... strings) {
+        return escape(Arrays.asList(strings));
+    }
+
+    /**
+     * Escape a {@link List} of strings.
+     *
+     * @param   strings     the strings
+     * @return              the {@link Batch} of escaped strings
+     * @throws  JSONEscapeException  if a string contains a lone surrogate and the policy is to reject them
+     */
+    public Batch escape(List<? extends CharSequence> strings) {
+        Segments segments = new Segments(strings);
+        int count = segments.count;
+        if (segments.rawOffsets[count] <= threshold)
+            segments.process(0, count, false);
+        else
+            pool.invoke(new SegmentTask(segments, 0, count, false));
+        int n = strings.size();
+        int[] offsets = new int[n + 1];
+        int offset = 0;
+        for (int i = 0, k = 0; i < n; i++) {
+            offsets[i] = offset++;
+            for (int m = segments.firstSegment[i + 1]; k < m; k++) {
+                int length = segments.outputOffsets[k];
+                segments.outputOffsets[k] = offset;
+                offset += length;
+            }
+            offset++;
+        }
+        offsets[n] = offset;
+        char[] chars = new char[offset];
+        for (int i = 0; i < n; i++) {
+            chars[offsets[i]] = '"';
+            chars[offsets[i + 1] - 1] = '"';
+        }
+        segments.output = chars;
+        if (segments.rawOffsets[count] <= threshold)
+            segments.process(0, count, true);
+        else
+            pool.invoke(new SegmentTask(segments, 0, count, true));
+        return new Batch(chars, offsets);
+    }
+
+    /**
+     * The segments into which the strings are divided for processing.  During the first pass, the
+     * {@code outputOffsets} array holds the escaped length of each segment; it is then converted to hold the offset of
+     * each segment in the output array.
+     */
+    private final class Segments {
+
+        private final List<? extends CharSequence> strings;
+        private final int count;
+        private final int[] firstSegment;
+        private final int[] stringIndex;
+        private final int[] starts;
+        private final int[] ends;
+        private final long[] rawOffsets;
+        private final int[] outputOffsets;
+        private char[] output;
+
+        private Segments(List<? extends CharSequence> strings) {
+            this.strings = strings;
+            int n = strings.size();
+            firstSegment = new int[n + 1];
+            int total = 0;
+            for (int i = 0; i < n; i++) {
+                int length = strings.get(i).length();
+                total += length / threshold + (length % threshold != 0 ? 1 : 0);
+            }
+            stringIndex = new int[total];
+            starts = new int[total];
+            ends = new int[total];
+            rawOffsets = new long[total + 1];
+            outputOffsets = new int[total];
+            int k = 0;
+            for (int i = 0; i < n; i++) {
+                CharSequence cs = strings.get(i);
+                int length = cs.length();
+                if (JSONMetrics.ENABLED)
+                    JSONMetrics.recordEscape(length);
+                int start = 0;
+                while (start < length) {
+                    int end = start + Math.min(length - start, threshold);
+                    if (end < length && Character.isHighSurrogate(cs.charAt(end - 1)) &&
+                            Character.isLowSurrogate(cs.charAt(end)))
+                        end++;
+                    stringIndex[k] = i;
+                    starts[k] = start;
+                    ends[k] = end;
+                    rawOffsets[k + 1] = rawOffsets[k] + end - start;
+                    k++;
+                    start = end;
+                }
+                firstSegment[i + 1] = k;
+            }
+            count = k;
+        }
+
+        private void process(int from, int to, boolean store) {
+            for (int k = from; k < to; k++) {
+                CharSequence cs = strings.get(stringIndex[k]);
+                if (store)
+                    JSONFunctions.storeEscaped(output, outputOffsets[k], cs, starts[k], ends[k], policy);
+                else
+                    outputOffsets[k] = JSONFunctions.escapedLength(cs, starts[k], ends[k], policy);
+            }
+        }
+
+    }
+
+    private final class SegmentTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Segments segments;
+        private final int from;
+        private final int to;
+        private final boolean store;
+
+        private SegmentTask(Segments segments, int from, int to, boolean store) {
+            this.segments = segments;
+            this.from = from;
+            this.to = to;
+            this.store = store;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1 || segments.rawOffsets[to] - segments.rawOffsets[from] <= threshold)
+                segments.process(from, to, store);
+            else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SegmentTask(segments, from, mid, store), new SegmentTask(segments, mid, to, store));
+            }
+        }
+
+    }
+
+    /**
+     * The result of escaping a batch of strings: a single {@code char} array containing the strings in JSON quoted
+     * string form, and a table of the offsets of the strings in the array.
+     */
+    public static final class Batch {
+
+        private final char[] chars;
+        private final int[] offsets;
+
+        private Batch(char[] chars, int[] offsets) {
+            this.chars = chars;
+            this.offsets = offsets;
+        }
+
+        /**
+         * Get the number of strings in the batch.
+         *
+         * @return              the number of strings
+         */
+        public int size() {
+            return offsets.length - 1;
+        }
+
+        /**
+         * Get the {@code char} array containing all the escaped strings (this is the internal array, not a copy).
+         *
+         * @return              the {@code char} array
+         */
+        public char[] getChars() {
+            return chars;
+        }
+
+        /**
+         * Get the offset in the array of the start of an escaped string (the opening double quote).
+         *
+         * @param   index       the index of the string
+         * @return              the offset
+         */
+        public int getStart(int index) {
+            return offsets[index];
+        }
+
+        /**
+         * Get the offset in the array of the end of an escaped string (following the closing double quote).
+         *
+         * @param   index       the index of the string
+         * @return              the offset
+         */
+        public int getEnd(int index) {
+            return offsets[index + 1];
+        }
+
+        /**
+         * Get an escaped string as a {@link String}.
+         *
+         * @param   index       the index of the string
+         * @return              the escaped string
+         */
+        public String getString(int index) {
+            return new String(chars, offsets[index], offsets[index + 1] - offsets[index]);
+        }
+
+    }
+
+}
@@ -0,0 +1,345 @@
+/*
+ * @(#) JSONEscapeBuffer.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A reusable buffer for the output of JSON to a {@link Writer}.  Escaped strings and other JSON text are accumulated
+ * in a {@code char} array, and written to the {@link Writer} in large blocks; this avoids the cost of a separate call
+ * (often to a {@code synchronized} method) for each character or escape sequence.
+ *
+ * <p>A buffer is attached to a {@link Writer} for the output of a document (or part of a document), and then
+ * released:</p>
+ * <pre>
+ *     JSONEscapeBuffer buffer = JSONEscapeBuffer.local().attach(writer);
+ *     try {
+ *         buffer.append('{').appendString("name").append(':').appendString(name).append('}');
+ *     }
+ *     finally {
+ *         buffer.release();
+ *     }
+ * </pre>
+ *
+ * <p>Instances of this class are not thread-safe; a buffer may be obtained for the current thread using
+ * {@link #local()}, or instances may be created and pooled by the caller.  The class does not use locks, so it may be
+ * used from virtual threads without pinning the carrier thread (but note that each virtual thread that calls
+ * {@link #local()} will allocate its own buffer).</p>
+ *
+ * @author  Peter Wall
+ */
+public final class JSONEscapeBuffer implements Appendable, Flushable {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int MIN_CAPACITY = 16;
+
+    private static final ThreadLocal<JSONEscapeBuffer> localBuffer = ThreadLocal.withInitial(JSONEscapeBuffer::new);
+
+    private final char[] buffer;
+    private int count;
+    private Writer writer;
+
+    /**
+     * Construct a {@code JSONEscapeBuffer} with the specified capacity.
+     *
+     * @param   capacity    the capacity of the buffer, in {@code char}s
+     * @throws  IllegalArgumentException  if the capacity is less than {@link #MIN_CAPACITY}
+     */
+    public JSONEscapeBuffer(int capacity) {
+        if (capacity < MIN_CAPACITY)
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        buffer = new char[capacity];
+    }
+
+    /**
+     * Construct a {@code JSONEscapeBuffer} with the default capacity.
+     */
+    public JSONEscapeBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Get the {@code JSONEscapeBuffer} for the current thread.
+     *
+     * @return              the {@code JSONEscapeBuffer}
+     */
+    public static JSONEscapeBuffer local() {
+        return localBuffer.get();
+    }
+
+    /**
+     * Get the capacity of the buffer.
+     *
+     * @return              the capacity, in {@code char}s
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Test whether the buffer is attached to a {@link Writer}.
+     *
+     * @return              {@code true} if the buffer is attached
+     */
+    public boolean isAttached() {
+        return writer != null;
+    }
+
+    /**
+     * Attach the buffer to a {@link Writer}.
+     *
+     * @param   writer      the {@link Writer}
+     * @return              the buffer (for chaining)
+     * @throws  IllegalStateException  if the buffer is already attached to a {@link Writer}
+     */
+    public JSONEscapeBuffer attach(Writer writer) {
+        if (this.writer != null)
+            throw new IllegalStateException("JSONEscapeBuffer already attached");
+        this.writer = writer;
+        count = 0;
+        return this;
+    }
+
+    /**
+     * Write any buffered characters to the {@link Writer}, and detach the buffer from it.  The buffer is detached even
+     * if the {@link Writer} throws an exception.  The {@link Writer} is not flushed or closed.  If the buffer is not
+     * attached, this function has no effect.
+     *
+     * @throws  IOException     if thrown by the {@link Writer}
+     */
+    public void release() throws IOException {
+        if (writer == null)
+            return;
+        try {
+            writeBuffer();
+        }
+        finally {
+            writer = null;
+            count = 0;
+        }
+    }
+
+    /**
+     * Write any buffered characters to the {@link Writer}, and flush the {@link Writer}.
+     *
+     * @throws  IOException     if thrown by the {@link Writer}
+     * @throws  IllegalStateException  if the buffer is not attached to a {@link Writer}
+     */
+    @Override
+    public void flush() throws IOException {
+        writeBuffer();
+        writer.flush();
+    }
+
+    /**
+     * Append a string, applying JSON escaping rules and enclosing it in double quotes.
+     *
+     * @param   cs                  the string
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @return                      the buffer (for chaining)
+     * @throws  IOException         if thrown by the {@link Writer}
+     * @throws  IllegalStateException  if the buffer is not attached to a {@link Writer}
+     * @throws  JSONEscapeException  if the string contains a lone surrogate and the policy is to reject them
+     */
+    public JSONEscapeBuffer appendString(CharSequence cs, JSONEscapePolicy policy) throws IOException {
+        checkAttached();
+        if (JSONMetrics.ENABLED)
+            JSONMetrics.recordEscape(cs.length());
+        append('"');
+        appendEscaped(cs, 0, cs.length(), policy);
+        return append('"');
+    }
+
+    /**
+     * Append a portion of a string, applying JSON escaping rules (but without the enclosing double quotes).
+     *
+     * @param   cs                  the string
+     * @param   start               the start index
+     * @param   end                 the end index
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @throws  IOException         if thrown by the {@link Writer}
+     */
+    void appendEscaped(CharSequence cs, int start, int end, JSONEscapePolicy policy) throws IOException {
+        while (start < end) {
+            int i = JSONScanner.scanUnescaped(cs, start, end, policy);
+            if (i > start)
+                appendRun(cs, start, i);
+            if (i >= end)
+                break;
+            char ch = cs.charAt(i);
+            if (buffer.length - count < 12)
+                writeBuffer();
+            if (policy.isSurrogateChecked() && Character.isSurrogate(ch)) {
+                if (JSONFunctions.isSurrogatePair(cs, i, end)) {
+                    count = JSONFunctions.storeChar(buffer, count, ch, policy);
+                    ch = cs.charAt(++i);
+                }
+                else
+                    ch = policy.loneSurrogate(ch, i);
+            }
+            count = JSONFunctions.storeChar(buffer, count, ch, policy);
+            start = i + 1;
+        }
+    }
+
+    /**
+     * Append a string, applying JSON escaping rules and enclosing it in double quotes.
+     *
+     * @param   cs                  the string
+     * @param   includeNonASCII     if {@code true}, output characters in the range 0x80-0xFFFF unmodified
+     * @return                      the buffer (for chaining)
+     * @throws  IOException         if thrown by the {@link Writer}
+     * @throws  IllegalStateException  if the buffer is not attached to a {@link Writer}
+     */
+    public JSONEscapeBuffer appendString(CharSequence cs, boolean includeNonASCII) throws IOException {
+        return appendString(cs, JSONEscapePolicy.of(includeNonASCII));
+    }
+
+    /**
+     * Append a string, applying JSON escaping rules using the default {@link JSONEscapePolicy} and enclosing it in
+     * double quotes.
+     *
+     * @param   cs                  the string
+     * @return                      the buffer (for chaining)
+     * @throws  IOException         if thrown by the {@link Writer}
+     * @throws  IllegalStateException  if the buffer is not attached to a {@link Writer}
+     */
+    public JSONEscapeBuffer appendString(CharSequence cs) throws IOException {
+        return appendString(cs, JSONEscapePolicy.DEFAULT);
+    }
+
+    /**
+     * Append a {@link CharSequence} without escaping (for use with JSON structural characters, numbers <i>etc.</i>).
+     *
+     * @param   cs                  the {@link CharSequence} ({@code null} is output as {@code "null"})
+     * @return                      the buffer (for chaining)
+     * @throws  IOException         if thrown by the {@link Writer}
+     * @throws  IllegalStateException  if the buffer is not attached to a {@link Writer}
+     */
+    @Override
+    public JSONEscapeBuffer append(CharSequence cs) throws IOException {
+        checkAttached();
+        if (cs == null)
+            cs = "null";
+        appendRun(cs, 0, cs.length());
+        return this;
+    }
+
+    /**
+     * Append a portion of a {@link CharSequence} without escaping.
+     *
+     * @param   cs                  the {@link CharSequence} ({@code null} is output as {@code "null"})
+     * @param   start               the start index
+     * @param   end                 the end index
+     * @return                      the buffer (for chaining)
+     * @throws  IOException         if thrown by the {@link Writer}
+     * @throws  IllegalStateException  if the buffer is not attached to a {@link Writer}
+     */
+    @Override
+    public JSONEscapeBuffer append(CharSequence cs, int start, int end) throws IOException {
+        checkAttached();
+        if (cs == null)
+            cs = "null";
+        if (start < 0 || start > end || end > cs.length())
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + cs.length());
+        appendRun(cs, start, end);
+        return this;
+    }
+
+    /**
+     * Append a single character without escaping.
+     *
+     * @param   ch                  the character
+     * @return                      the buffer (for chaining)
+     * @throws  IOException         if thrown by the {@link Writer}
+     * @throws  IllegalStateException  if the buffer is not attached to a {@link Writer}
+     */
+    @Override
+    public JSONEscapeBuffer append(char ch) throws IOException {
+        checkAttached();
+        if (count == buffer.length)
+            writeBuffer();
+        buffer[count++] = ch;
+        return this;
+    }
+
+    /**
+     * Append a run of characters that do not require escaping, writing the buffer to the {@link Writer} as it fills.
+     * A run of a {@link String} longer than the buffer is written to the {@link Writer} directly.
+     *
+     * @param   cs                  the {@link CharSequence}
+     * @param   start               the start index
+     * @param   end                 the end index
+     * @throws  IOException         if thrown by the {@link Writer}
+     */
+    private void appendRun(CharSequence cs, int start, int end) throws IOException {
+        if (cs instanceof String && end - start >= buffer.length) {
+            writeBuffer();
+            writer.write((String)cs, start, end - start);
+            return;
+        }
+        while (start < end) {
+            if (count == buffer.length)
+                writeBuffer();
+            int n = Math.min(end - start, buffer.length - count);
+            if (cs instanceof String)
+                ((String)cs).getChars(start, start + n, buffer, count);
+            else {
+                for (int i = 0; i < n; i++)
+                    buffer[count + i] = cs.charAt(start + i);
+            }
+            count += n;
+            start += n;
+        }
+    }
+
+    /**
+     * Write the buffered characters to the {@link Writer}.
+     *
+     * @throws  IOException     if thrown by the {@link Writer}
+     * @throws  IllegalStateException  if the buffer is not attached to a {@link Writer}
+     */
+    private void writeBuffer() throws IOException {
+        checkAttached();
+        if (count > 0) {
+            writer.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    /**
+     * Check that the buffer is attached to a {@link Writer}.
+     *
+     * @throws  IllegalStateException  if the buffer is not attached to a {@link Writer}
+     */
+    private void checkAttached() {
+        if (writer == null)
+            throw new IllegalStateException("JSONEscapeBuffer not attached");
+    }
+
+}
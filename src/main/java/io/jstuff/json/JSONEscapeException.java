@@ -0,0 +1,63 @@
+/*
+ * @(#) JSONEscapeException.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+/**
+ * An exception thrown by the JSON string escaping and output functions when a string can not be output, that is, when
+ * it contains a lone surrogate and the {@link JSONEscapePolicy} has a surrogate policy of
+ * {@link JSONSurrogatePolicy#REJECT}.  It extends {@link IllegalArgumentException}, and carries the offset in the
+ * input string of the character that could not be output.
+ *
+ * @author  Peter Wall
+ */
+public class JSONEscapeException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int offset;
+
+    /**
+     * Construct a {@code JSONEscapeException}.
+     *
+     * @param   message     the message
+     * @param   offset      the offset in the input of the character that could not be output
+     */
+    public JSONEscapeException(String message, int offset) {
+        super(message);
+        this.offset = offset;
+    }
+
+    /**
+     * Get the offset in the input of the character that could not be output.  For {@link JSONEscapingWriter}, which
+     * escapes the string in pieces, the offset is relative to the piece being escaped, not to the whole string.
+     *
+     * @return              the offset
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+}
@@ -0,0 +1,273 @@
+/*
+ * @(#) JSONEscapePolicy.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import io.jstuff.util.IntOutput;
+
+/**
+ * An immutable policy describing which characters are to be escaped when a string is output in JSON form.  The decision
+ * for each character in the ASCII and Latin-1 ranges is made by a single lookup in a pre-computed table, which also
+ * holds the escape sequence to be used.
+ *
+ * <p>The characters that must be escaped according to the JSON specification (the double quote, the backslash and the
+ * control characters) are always escaped, as are the characters from {@code 0x7F} to {@code 0x9F}.  The policy
+ * determines whether the characters above the ASCII range are escaped, and whether certain additional characters are
+ * escaped to make the output safe for inclusion in other contexts.</p>
+ *
+ * @author  Peter Wall
+ */
+public final class JSONEscapePolicy {
+
+    /** The size of the lookup table; characters at or above this value are checked individually. */
+    static final int TABLE_SIZE = 0x100;
+
+    /** Escape all characters above the ASCII range (the default for the functions taking an {@code includeNonASCII}
+     * flag). */
+    public static final JSONEscapePolicy DEFAULT = new JSONEscapePolicy(false, false, false, false);
+
+    /** Output characters above the ASCII range without escaping. */
+    public static final JSONEscapePolicy INCLUDE_NON_ASCII = new JSONEscapePolicy(true, false, false, false);
+
+    /** As {@link #DEFAULT}, but also escape {@code <}, {@code >}, {@code &} and {@code '}, so that the output may be
+     * embedded in HTML (including in a {@code <script>} element). */
+    public static final JSONEscapePolicy HTML_SAFE = new JSONEscapePolicy(false, true, false, false);
+
+    /** As {@link #INCLUDE_NON_ASCII}, but escape the line separator ({@code U+2028}) and paragraph separator
+     * ({@code U+2029}) characters, which are not valid in JavaScript string literals prior to ES2019. */
+    public static final JSONEscapePolicy JAVASCRIPT_SAFE = new JSONEscapePolicy(true, false, true, false);
+
+    /** As {@link #DEFAULT}, but also escape the forward slash character as {@code \/}. */
+    public static final JSONEscapePolicy ESCAPE_SLASH = new JSONEscapePolicy(false, false, false, true);
+
+    private final boolean includeNonASCII;
+    private final boolean htmlSafe;
+    private final boolean javaScriptSafe;
+    private final boolean escapeSlash;
+    private final JSONSurrogatePolicy surrogatePolicy;
+    private final boolean surrogateChecked;
+    private final String[] escapes;
+
+    /**
+     * Construct a {@code JSONEscapePolicy}.
+     *
+     * @param   includeNonASCII     if {@code true}, output the characters above the ASCII range without escaping
+     * @param   htmlSafe            if {@code true}, escape the characters {@code <}, {@code >}, {@code &} and
+     *                              {@code '}
+     * @param   javaScriptSafe      if {@code true}, escape the characters {@code U+2028} and {@code U+2029}
+     * @param   escapeSlash         if {@code true}, escape the forward slash character
+     */
+    public JSONEscapePolicy(boolean includeNonASCII, boolean htmlSafe, boolean javaScriptSafe, boolean escapeSlash) {
+        this(includeNonASCII, htmlSafe, javaScriptSafe, escapeSlash, JSONSurrogatePolicy.PASS);
+    }
+
+    /**
+     * Construct a {@code JSONEscapePolicy}, specifying the treatment of lone surrogates.
+     *
+     * @param   includeNonASCII     if {@code true}, output the characters above the ASCII range without escaping
+     * @param   htmlSafe            if {@code true}, escape the characters {@code <}, {@code >}, {@code &} and
+     *                              {@code '}
+     * @param   javaScriptSafe      if {@code true}, escape the characters {@code U+2028} and {@code U+2029}
+     * @param   escapeSlash         if {@code true}, escape the forward slash character
+     * @param   surrogatePolicy     the treatment of lone surrogates
+     */
+    public JSONEscapePolicy(boolean includeNonASCII, boolean htmlSafe, boolean javaScriptSafe, boolean escapeSlash,
+            JSONSurrogatePolicy surrogatePolicy) {
+        this.includeNonASCII = includeNonASCII;
+        this.htmlSafe = htmlSafe;
+        this.javaScriptSafe = javaScriptSafe;
+        this.escapeSlash = escapeSlash;
+        this.surrogatePolicy = surrogatePolicy;
+        surrogateChecked = surrogatePolicy != JSONSurrogatePolicy.PASS;
+        escapes = new String[TABLE_SIZE];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            char ch = (char)i;
+            if (ch == '"' || ch == '\\' || ch == '/' && escapeSlash)
+                escapes[i] = "\\" + ch;
+            else if (ch == '\b')
+                escapes[i] = "\\b";
+            else if (ch == '\f')
+                escapes[i] = "\\f";
+            else if (ch == '\n')
+                escapes[i] = "\\n";
+            else if (ch == '\r')
+                escapes[i] = "\\r";
+            else if (ch == '\t')
+                escapes[i] = "\\t";
+            else if (ch < 0x20 || ch >= 0x7F && ch < 0xA0 || ch >= 0xA0 && !includeNonASCII ||
+                    htmlSafe && (ch == '<' || ch == '>' || ch == '&' || ch == '\''))
+                escapes[i] = unicodeEscape(ch);
+        }
+    }
+
+    /**
+     * Get the {@code JSONEscapePolicy} corresponding to the {@code includeNonASCII} flag used by the functions in
+     * {@link JSONFunctions}.
+     *
+     * @param   includeNonASCII     if {@code true}, output the characters above the ASCII range without escaping
+     * @return                      {@link #INCLUDE_NON_ASCII} or {@link #DEFAULT}
+     */
+    public static JSONEscapePolicy of(boolean includeNonASCII) {
+        return includeNonASCII ? INCLUDE_NON_ASCII : DEFAULT;
+    }
+
+    /**
+     * Get a {@code JSONEscapePolicy} with the same escaping rules as this one, but with the specified treatment of lone
+     * surrogates.
+     *
+     * @param   surrogatePolicy     the treatment of lone surrogates
+     * @return                      the {@code JSONEscapePolicy}
+     */
+    public JSONEscapePolicy withSurrogatePolicy(JSONSurrogatePolicy surrogatePolicy) {
+        if (surrogatePolicy == this.surrogatePolicy)
+            return this;
+        return new JSONEscapePolicy(includeNonASCII, htmlSafe, javaScriptSafe, escapeSlash, surrogatePolicy);
+    }
+
+    /**
+     * Test whether a character is to be escaped under this policy.
+     *
+     * @param   ch          the character
+     * @return              {@code true} if the character is to be escaped
+     */
+    public boolean isEscaped(char ch) {
+        return ch < TABLE_SIZE ? escapes[ch] != null : isEscapedAboveTable(ch);
+    }
+
+    /**
+     * Test whether a character requires processing by the escaping functions, that is, whether it is to be escaped, or
+     * it is a surrogate and this policy checks for lone surrogates.
+     *
+     * @param   ch          the character
+     * @return              {@code true} if the character requires processing
+     */
+    boolean needsProcessing(char ch) {
+        return ch < TABLE_SIZE ? escapes[ch] != null :
+                isEscapedAboveTable(ch) || surrogateChecked && Character.isSurrogate(ch);
+    }
+
+    /**
+     * Test whether this policy checks for lone surrogates (that is, the surrogate policy is not
+     * {@link JSONSurrogatePolicy#PASS}).
+     *
+     * @return              {@code true} if lone surrogates are checked
+     */
+    boolean isSurrogateChecked() {
+        return surrogateChecked;
+    }
+
+    /**
+     * Apply the surrogate policy to a lone surrogate.
+     *
+     * @param   ch          the lone surrogate
+     * @param   index       the index of the lone surrogate in the input (for error reporting)
+     * @return              the character to be output in its place
+     * @throws  JSONEscapeException  if the surrogate policy is {@link JSONSurrogatePolicy#REJECT}
+     */
+    char loneSurrogate(char ch, int index) {
+        switch (surrogatePolicy) {
+        case REPLACE:
+            return JSONSurrogatePolicy.REPLACEMENT_CHARACTER;
+        case REJECT:
+            throw new JSONEscapeException(JSONFunctions.LONE_SURROGATE, index);
+        }
+        return ch;
+    }
+
+    /**
+     * Get the escape sequence for a character from the lookup table.  The character must be less than
+     * {@link #TABLE_SIZE}.
+     *
+     * @param   ch          the character
+     * @return              the escape sequence, or {@code null} if the character is not to be escaped
+     */
+    String getEscape(char ch) {
+        return escapes[ch];
+    }
+
+    /**
+     * Test whether a character at or above {@link #TABLE_SIZE} is to be escaped.  Such characters are always escaped
+     * using the {@code \}{@code uXXXX} form.
+     *
+     * @param   ch          the character
+     * @return              {@code true} if the character is to be escaped
+     */
+    boolean isEscapedAboveTable(char ch) {
+        return !includeNonASCII || javaScriptSafe && (ch == '\u2028' || ch == '\u2029');
+    }
+
+    /**
+     * Test whether characters above the ASCII range are output without escaping under this policy.
+     *
+     * @return              {@code true} if characters above the ASCII range are output without escaping
+     */
+    public boolean isIncludeNonASCII() {
+        return includeNonASCII;
+    }
+
+    /**
+     * Test whether the characters {@code <}, {@code >}, {@code &} and {@code '} are escaped under this policy.
+     *
+     * @return              {@code true} if the characters {@code <}, {@code >}, {@code &} and {@code '} are escaped
+     */
+    public boolean isHTMLSafe() {
+        return htmlSafe;
+    }
+
+    /**
+     * Test whether the characters {@code U+2028} and {@code U+2029} are escaped under this policy.
+     *
+     * @return              {@code true} if the characters {@code U+2028} and {@code U+2029} are escaped
+     */
+    public boolean isJavaScriptSafe() {
+        return javaScriptSafe;
+    }
+
+    /**
+     * Test whether the forward slash character is escaped under this policy.
+     *
+     * @return              {@code true} if the forward slash character is escaped
+     */
+    public boolean isEscapeSlash() {
+        return escapeSlash;
+    }
+
+    /**
+     * Get the treatment of lone surrogates under this policy.
+     *
+     * @return              the {@link JSONSurrogatePolicy}
+     */
+    public JSONSurrogatePolicy getSurrogatePolicy() {
+        return surrogatePolicy;
+    }
+
+    private static String unicodeEscape(char ch) {
+        char[] chars = { '\\', 'u', '0', '0', '0', '0' };
+        for (int i = 5, n = ch; n != 0; i--, n >>= 4)
+            chars[i] = IntOutput.digitsHexLC[n & 0xF];
+        return new String(chars);
+    }
+
+}
@@ -0,0 +1,235 @@
+/*
+ * @(#) JSONEscapingWriter.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * A {@link Writer} that outputs the characters written to it as a JSON string value, enclosed in double quotes and
+ * escaped according to a {@link JSONEscapePolicy} (the same rules as
+ * {@link JSONFunctions#appendChar(Appendable, char, JSONEscapePolicy)}).  This allows string values too large to be
+ * held in memory (for example, embedded documents or base64 attachments) to be output in pieces.
+ *
+ * <p>The opening double quote is output before the first characters (or on {@link #close()}, if nothing has been
+ * written), and the closing double quote is output by {@link #close()}; closing the {@code JSONEscapingWriter} does
+ * <b>not</b> close the underlying {@link Writer}, so that the rest of the JSON may be output to it.  The escaped
+ * characters are accumulated in a fixed-size buffer and written to the underlying {@link Writer} in blocks, so memory
+ * use does not depend on the length of the string.  A surrogate pair may be split between two calls to
+ * {@code write}.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @author  Peter Wall
+ */
+public class JSONEscapingWriter extends Writer {
+
+    private final JSONEscapeBuffer buffer;
+    private final JSONEscapePolicy policy;
+    private final char[] single;
+    private final CharBuffer singleChars;
+    private final char[] pair;
+    private final CharBuffer pairChars;
+    private char pendingHigh;
+    private int length;
+    private boolean started;
+    private boolean closed;
+
+    /**
+     * Construct a {@code JSONEscapingWriter} with the specified {@link JSONEscapePolicy}.
+     *
+     * @param   out         the underlying {@link Writer}
+     * @param   policy      the {@link JSONEscapePolicy}
+     */
+    public JSONEscapingWriter(Writer out, JSONEscapePolicy policy) {
+        buffer = new JSONEscapeBuffer().attach(out);
+        this.policy = policy;
+        single = new char[1];
+        singleChars = CharBuffer.wrap(single);
+        pair = new char[2];
+        pairChars = CharBuffer.wrap(pair);
+        pendingHigh = 0;
+        length = 0;
+        started = false;
+        closed = false;
+    }
+
+    /**
+     * Construct a {@code JSONEscapingWriter} with the default {@link JSONEscapePolicy}.
+     *
+     * @param   out         the underlying {@link Writer}
+     */
+    public JSONEscapingWriter(Writer out) {
+        this(out, JSONEscapePolicy.DEFAULT);
+    }
+
+    /**
+     * Write a single character.
+     *
+     * @param   c           the character (in the low-order 16 bits)
+     * @throws  IOException if thrown by the underlying {@link Writer}, or if the {@code JSONEscapingWriter} is closed
+     * @throws  JSONEscapeException  if a lone surrogate is written and the policy is to reject them
+     */
+    @Override
+    public void write(int c) throws IOException {
+        single[0] = (char)c;
+        escape(singleChars, 0, 1);
+    }
+
+    /**
+     * Write a portion of an array of characters.
+     *
+     * @param   cbuf        the array
+     * @param   off         the offset of the first character
+     * @param   len         the number of characters
+     * @throws  IOException if thrown by the underlying {@link Writer}, or if the {@code JSONEscapingWriter} is closed
+     * @throws  JSONEscapeException  if a lone surrogate is written and the policy is to reject them
+     */
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > cbuf.length || off + len < 0)
+            throw new IndexOutOfBoundsException("off " + off + ", len " + len + ", length " + cbuf.length);
+        escape(CharBuffer.wrap(cbuf), off, off + len);
+    }
+
+    /**
+     * Write a portion of a string.
+     *
+     * @param   str         the string
+     * @param   off         the offset of the first character
+     * @param   len         the number of characters
+     * @throws  IOException if thrown by the underlying {@link Writer}, or if the {@code JSONEscapingWriter} is closed
+     * @throws  JSONEscapeException  if a lone surrogate is written and the policy is to reject them
+     */
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > str.length() || off + len < 0)
+            throw new IndexOutOfBoundsException("off " + off + ", len " + len + ", length " + str.length());
+        escape(str, off, off + len);
+    }
+
+    /**
+     * Write the buffered characters to the underlying {@link Writer}, and flush it.  A high surrogate at the end of
+     * the characters written so far is retained until the next character is written.
+     *
+     * @throws  IOException if thrown by the underlying {@link Writer}, or if the {@code JSONEscapingWriter} is closed
+     */
+    @Override
+    public void flush() throws IOException {
+        checkOpen();
+        buffer.flush();
+    }
+
+    /**
+     * Output the closing double quote, and write the buffered characters to the underlying {@link Writer}.  The
+     * underlying {@link Writer} is not flushed or closed.  Closing a {@code JSONEscapingWriter} that is already closed
+     * has no effect.
+     *
+     * @throws  IOException if thrown by the underlying {@link Writer}
+     * @throws  JSONEscapeException  if a lone surrogate is written and the policy is to reject them
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        try {
+            start();
+            if (pendingHigh != 0) {
+                escapeLone(pendingHigh);
+                pendingHigh = 0;
+            }
+            buffer.append('"');
+            if (JSONMetrics.ENABLED)
+                JSONMetrics.recordEscape(length);
+        }
+        finally {
+            closed = true;
+            buffer.release();
+        }
+    }
+
+    /**
+     * Escape a range of characters, retaining a high surrogate at the end of the range (which may form a pair with the
+     * first character of the next range).
+     *
+     * @param   cs          the characters
+     * @param   start       the start index
+     * @param   end         the end index
+     * @throws  IOException if thrown by the underlying {@link Writer}, or if the {@code JSONEscapingWriter} is closed
+     */
+    private void escape(CharSequence cs, int start, int end) throws IOException {
+        start();
+        if (start == end)
+            return;
+        if (JSONMetrics.ENABLED)
+            length += end - start;
+        if (pendingHigh != 0) {
+            char high = pendingHigh;
+            pendingHigh = 0;
+            if (Character.isLowSurrogate(cs.charAt(start))) {
+                pair[0] = high;
+                pair[1] = cs.charAt(start++);
+                buffer.appendEscaped(pairChars, 0, 2, policy);
+            }
+            else
+                escapeLone(high);
+        }
+        if (start < end && Character.isHighSurrogate(cs.charAt(end - 1)))
+            pendingHigh = cs.charAt(--end);
+        buffer.appendEscaped(cs, start, end, policy);
+    }
+
+    /**
+     * Escape a high surrogate that is not followed by a low surrogate.
+     *
+     * @param   high        the high surrogate
+     * @throws  IOException if thrown by the underlying {@link Writer}
+     */
+    private void escapeLone(char high) throws IOException {
+        pair[0] = high;
+        buffer.appendEscaped(pairChars, 0, 1, policy);
+    }
+
+    /**
+     * Output the opening double quote, if it has not already been output.
+     *
+     * @throws  IOException if thrown by the underlying {@link Writer}, or if the {@code JSONEscapingWriter} is closed
+     */
+    private void start() throws IOException {
+        checkOpen();
+        if (!started) {
+            buffer.append('"');
+            started = true;
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed)
+            throw new IOException("JSONEscapingWriter closed");
+    }
+
+}
@@ -26,6 +26,7 @@
 package io.jstuff.json;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.function.IntConsumer;
 
 import io.jstuff.text.TextMatcher;
@@ -42,6 +43,21 @@ public class JSONFunctions {
     public static final String ILLEGAL_CHAR = "Illegal character in JSON string";
     public static final String ILLEGAL_UNICODE_SEQUENCE = "Illegal Unicode sequence in JSON string";
     public static final String ILLEGAL_ESCAPE_SEQUENCE = "Illegal escape sequence in JSON string";
+    public static final String ILLEGAL_UTF8_SEQUENCE = "Illegal UTF-8 sequence in JSON string";
+    public static final String ILLEGAL_NUMBER = "Illegal JSON number";
+    public static final String NUMBER_NOT_INTEGER = "JSON number is not an integer";
+    public static final String NUMBER_OUT_OF_RANGE = "JSON number out of range";
+    public static final String LONE_SURROGATE = "Lone surrogate in JSON string";
+
+    public static final int ERROR_UNTERMINATED_STRING = 1;
+    public static final int ERROR_ILLEGAL_CHAR = 2;
+    public static final int ERROR_ILLEGAL_UNICODE_SEQUENCE = 3;
+    public static final int ERROR_ILLEGAL_ESCAPE_SEQUENCE = 4;
+    public static final int ERROR_ILLEGAL_UTF8_SEQUENCE = 5;
+    public static final int ERROR_ILLEGAL_NUMBER = 6;
+    public static final int ERROR_NUMBER_NOT_INTEGER = 7;
+    public static final int ERROR_NUMBER_OUT_OF_RANGE = 8;
+    public static final int ERROR_LONE_SURROGATE = 9;
 
     /**
      * Append a {@link CharSequence} to an {@link Appendable} in JSON quoted string form (applying JSON escaping rules).
@@ -54,12 +70,66 @@ public class JSONFunctions {
      * @throws  IOException         if thrown by the {@link Appendable}
      */
     public static void appendString(Appendable a, CharSequence cs, boolean includeNonASCII) throws IOException {
+        appendString(a, cs, JSONEscapePolicy.of(includeNonASCII));
+    }
+
+    /**
+     * Append a {@link CharSequence} to an {@link Appendable} in JSON quoted string form, escaping characters according
+     * to the specified {@link JSONEscapePolicy}.
+     *
+     * @param   a                   the {@link Appendable}
+     * @param   cs                  the {@link CharSequence}
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @throws  IOException         if thrown by the {@link Appendable}
+     * @throws  JSONEscapeException  if the string contains a lone surrogate and the policy is to reject them
+     */
+    public static void appendString(Appendable a, CharSequence cs, JSONEscapePolicy policy) throws IOException {
+        if (JSONMetrics.ENABLED)
+            JSONMetrics.recordEscape(cs.length());
         a.append('"');
-        for (int i = 0, n = cs.length(); i < n; i++)
-            appendChar(a, cs.charAt(i), includeNonASCII);
+        appendEscaped(a, cs, 0, cs.length(), policy);
         a.append('"');
     }
 
+    /**
+     * Store a {@link CharSequence} in a {@code char} array in JSON quoted string form (applying JSON escaping rules).
+     * The characters above the ASCII range ({@code 0x20} to {@code 0x7E}) are output as Unicode escape sequences unless
+     * the {@code includeNonASCII} flag is set to {@code true}.  The {@link #escapedLength(CharSequence, boolean)}
+     * function may be used to determine the space required (plus two for the double quotes).
+     *
+     * @param   array               the {@code char} array
+     * @param   offset              the offset in the array at which to store the characters
+     * @param   cs                  the {@link CharSequence}
+     * @param   includeNonASCII     if {@code true}, output the characters above the ASCII range without escaping
+     * @return                      the offset following the last character stored
+     * @throws  IndexOutOfBoundsException  if there is insufficient space in the array
+     */
+    public static int appendString(char[] array, int offset, CharSequence cs, boolean includeNonASCII) {
+        return appendString(array, offset, cs, JSONEscapePolicy.of(includeNonASCII));
+    }
+
+    /**
+     * Store a {@link CharSequence} in a {@code char} array in JSON quoted string form, escaping characters according to
+     * the specified {@link JSONEscapePolicy}.  The {@link #escapedLength(CharSequence, JSONEscapePolicy)} function may
+     * be used to determine the space required (plus two for the double quotes).
+     *
+     * @param   array               the {@code char} array
+     * @param   offset              the offset in the array at which to store the characters
+     * @param   cs                  the {@link CharSequence}
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @return                      the offset following the last character stored
+     * @throws  IndexOutOfBoundsException  if there is insufficient space in the array
+     * @throws  JSONEscapeException  if the string contains a lone surrogate and the policy is to reject them
+     */
+    public static int appendString(char[] array, int offset, CharSequence cs, JSONEscapePolicy policy) {
+        if (JSONMetrics.ENABLED)
+            JSONMetrics.recordEscape(cs.length());
+        array[offset++] = '"';
+        offset = storeEscaped(array, offset, cs, 0, cs.length(), policy);
+        array[offset++] = '"';
+        return offset;
+    }
+
     /**
      * Output a {@link CharSequence} using an {@link IntConsumer} in JSON quoted string form (applying JSON escaping
      * rules).  The characters above the ASCII range ({@code 0x20} to {@code 0x7E}) are output as Unicode escape
@@ -70,12 +140,65 @@ public class JSONFunctions {
      * @param   consumer            the {@link IntConsumer}
      */
     public static void outputString(CharSequence cs, boolean includeNonASCII, IntConsumer consumer) {
+        outputString(cs, JSONEscapePolicy.of(includeNonASCII), consumer);
+    }
+
+    /**
+     * Output a {@link CharSequence} using an {@link IntConsumer} in JSON quoted string form, escaping characters
+     * according to the specified {@link JSONEscapePolicy}.  If the {@link IntConsumer} is a {@link BulkCharConsumer},
+     * runs of characters that need no escaping are passed to it in a single call.
+     *
+     * @param   cs                  the {@link CharSequence}
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @param   consumer            the {@link IntConsumer}
+     * @throws  JSONEscapeException  if the string contains a lone surrogate and the policy is to reject them
+     */
+    public static void outputString(CharSequence cs, JSONEscapePolicy policy, IntConsumer consumer) {
+        if (JSONMetrics.ENABLED)
+            JSONMetrics.recordEscape(cs.length());
         consumer.accept('"');
-        for (int i = 0, n = cs.length(); i < n; i++)
-            outputChar(cs.charAt(i), includeNonASCII, consumer);
+        if (consumer instanceof BulkCharConsumer)
+            outputEscaped(cs, policy, (BulkCharConsumer)consumer);
+        else {
+            for (int i = 0, n = cs.length(); i < n; i++) {
+                char ch = cs.charAt(i);
+                if (policy.isSurrogateChecked() && Character.isSurrogate(ch)) {
+                    if (isSurrogatePair(cs, i, n)) {
+                        outputChar(ch, policy, consumer);
+                        ch = cs.charAt(++i);
+                    }
+                    else
+                        ch = policy.loneSurrogate(ch, i);
+                }
+                outputChar(ch, policy, consumer);
+            }
+        }
         consumer.accept('"');
     }
 
+    private static void outputEscaped(CharSequence cs, JSONEscapePolicy policy, BulkCharConsumer consumer) {
+        int start = 0;
+        int end = cs.length();
+        while (start < end) {
+            int i = JSONScanner.scanUnescaped(cs, start, end, policy);
+            if (i > start)
+                consumer.accept(cs, start, i);
+            if (i >= end)
+                break;
+            char ch = cs.charAt(i);
+            if (policy.isSurrogateChecked() && Character.isSurrogate(ch)) {
+                if (isSurrogatePair(cs, i, end)) {
+                    outputChar(ch, policy, consumer);
+                    ch = cs.charAt(++i);
+                }
+                else
+                    ch = policy.loneSurrogate(ch, i);
+            }
+            outputChar(ch, policy, consumer);
+            start = i + 1;
+        }
+    }
+
     /**
      * Convert a {@link CharSequence} to a {@link String} in JSON quoted string form (applying JSON escaping rules).
      * The characters above the ASCII range ({@code 0x20} to {@code 0x7E}) are output as Unicode escape sequences unless
@@ -86,9 +209,22 @@ public class JSONFunctions {
      * @return  the converted string
      */
     public static String escapeString(CharSequence cs, boolean includeNonASCII) {
-        StringBuilder sb = new StringBuilder();
+        return escapeString(cs, JSONEscapePolicy.of(includeNonASCII));
+    }
+
+    /**
+     * Convert a {@link CharSequence} to a {@link String} in JSON quoted string form, escaping characters according to
+     * the specified {@link JSONEscapePolicy}.
+     *
+     * @param   cs                  the {@link CharSequence}
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @return  the converted string
+     * @throws  JSONEscapeException  if the string contains a lone surrogate and the policy is to reject them
+     */
+    public static String escapeString(CharSequence cs, JSONEscapePolicy policy) {
+        StringBuilder sb = new StringBuilder(escapedLength(cs, policy) + 2);
         try {
-            appendString(sb, cs, includeNonASCII);
+            appendString(sb, cs, policy);
         }
         catch (IOException ignore) {
             // Can't happen - StringBuilder doesn't throw exception
@@ -107,27 +243,35 @@ public class JSONFunctions {
      * @return  the converted string
      */
     public static String escapeStringUnquoted(CharSequence cs, boolean includeNonASCII) {
-        for (int i = 0, n = cs.length(); i < n; i++) {
-            char ch = cs.charAt(i);
-            if (ch < ' ' || ch >= '\u007F' || ch == '"' || ch == '\\') {
-                try {
-                    StringBuilder sb = new StringBuilder();
-                    if (i > 0)
-                        sb.append(cs, 0, i);
-                    while (true) {
-                        appendChar(sb, ch, includeNonASCII);
-                        if (++i >= n)
-                            break;
-                        ch = cs.charAt(i);
-                    }
-                    return sb.toString();
-                }
-                catch (IOException e) {
-                    // Can't happen - StringBuilder doesn't throw exception
-                }
-            }
+        return escapeStringUnquoted(cs, JSONEscapePolicy.of(includeNonASCII));
+    }
+
+    /**
+     * Convert a {@link CharSequence} to a {@link String}, escaping characters according to the specified
+     * {@link JSONEscapePolicy} without enclosing quotes.  If there are no characters requiring conversion, the original
+     * string is returned unmodified.
+     *
+     * @param   cs                  the {@link CharSequence}
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @return  the converted string
+     * @throws  JSONEscapeException  if the string contains a lone surrogate and the policy is to reject them
+     */
+    public static String escapeStringUnquoted(CharSequence cs, JSONEscapePolicy policy) {
+        int n = cs.length();
+        int i = JSONScanner.scanUnescaped(cs, 0, n, policy);
+        if (JSONMetrics.ENABLED)
+            JSONMetrics.recordEscapeUnquoted(n, i == n);
+        if (i == n)
+            return cs.toString();
+        StringBuilder sb = new StringBuilder(i + escapedLength(cs, i, n, policy));
+        sb.append(cs, 0, i);
+        try {
+            appendEscaped(sb, cs, i, n, policy);
+        }
+        catch (IOException ignore) {
+            // Can't happen - StringBuilder doesn't throw exception
         }
-        return cs.toString();
+        return sb.toString();
     }
 
     /**
@@ -138,7 +282,56 @@ public class JSONFunctions {
      * @return  the converted string
      */
     public static String escapeStringUnquoted(CharSequence cs) {
-        return escapeStringUnquoted(cs, false);
+        return escapeStringUnquoted(cs, JSONEscapePolicy.DEFAULT);
+    }
+
+    /**
+     * Get the number of characters that would be output for a {@link CharSequence} in JSON string form (applying JSON
+     * escaping rules), not including the enclosing double quotes.  The characters above the ASCII range ({@code 0x20}
+     * to {@code 0x7E}) are counted as Unicode escape sequences unless the {@code includeNonASCII} flag is set to
+     * {@code true}.
+     *
+     * @param   cs                  the {@link CharSequence}
+     * @param   includeNonASCII     if {@code true}, count the characters above the ASCII range without escaping
+     * @return                      the number of characters
+     */
+    public static int escapedLength(CharSequence cs, boolean includeNonASCII) {
+        return escapedLength(cs, JSONEscapePolicy.of(includeNonASCII));
+    }
+
+    /**
+     * Get the number of characters that would be output for a {@link CharSequence} in JSON string form, escaping
+     * characters according to the specified {@link JSONEscapePolicy}, not including the enclosing double quotes.
+     *
+     * @param   cs                  the {@link CharSequence}
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @return                      the number of characters
+     * @throws  JSONEscapeException  if the string contains a lone surrogate and the policy is to reject them
+     */
+    public static int escapedLength(CharSequence cs, JSONEscapePolicy policy) {
+        return escapedLength(cs, 0, cs.length(), policy);
+    }
+
+    static int escapedLength(CharSequence cs, int start, int end, JSONEscapePolicy policy) {
+        int length = 0;
+        while (true) {
+            int i = JSONScanner.scanUnescaped(cs, start, end, policy);
+            length += i - start;
+            if (i >= end)
+                return length;
+            char ch = cs.charAt(i);
+            if (policy.isSurrogateChecked() && Character.isSurrogate(ch)) {
+                if (isSurrogatePair(cs, i, end)) {
+                    length += policy.isEscapedAboveTable(ch) ? 12 : 2;
+                    start = i + 2;
+                    continue;
+                }
+                ch = policy.loneSurrogate(ch, i);
+            }
+            length += ch < JSONEscapePolicy.TABLE_SIZE ? policy.getEscape(ch).length() :
+                    policy.isEscapedAboveTable(ch) ? 6 : 1;
+            start = i + 1;
+        }
     }
 
     /**
@@ -152,21 +345,27 @@ public class JSONFunctions {
      * @throws  IOException         if thrown by the {@link Appendable}
      */
     public static void appendChar(Appendable a, char ch, boolean includeNonASCII) throws IOException {
-        if (ch == '"' || ch == '\\') {
-            a.append('\\');
-            a.append(ch);
+        appendChar(a, ch, JSONEscapePolicy.of(includeNonASCII));
+    }
+
+    /**
+     * Append a single character to an {@link Appendable}, escaping it if required by the specified
+     * {@link JSONEscapePolicy}.
+     *
+     * @param   a                   the {@link Appendable}
+     * @param   ch                  the character
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @throws  IOException         if thrown by the {@link Appendable}
+     */
+    public static void appendChar(Appendable a, char ch, JSONEscapePolicy policy) throws IOException {
+        if (ch < JSONEscapePolicy.TABLE_SIZE) {
+            String escape = policy.getEscape(ch);
+            if (escape == null)
+                a.append(ch);
+            else
+                a.append(escape);
         }
-        else if (ch == '\b')
-            a.append("\\b");
-        else if (ch == '\f')
-            a.append("\\f");
-        else if (ch == '\n')
-            a.append("\\n");
-        else if (ch == '\r')
-            a.append("\\r");
-        else if (ch == '\t')
-            a.append("\\t");
-        else if (ch < 0x20 || ch >= 0x7F && ch < 0xA0 || ch >= 0xA0 && !includeNonASCII) {
+        else if (policy.isEscapedAboveTable(ch)) {
             a.append("\\u");
             IntOutput.append4HexLC(a, ch);
         }
@@ -184,37 +383,172 @@ public class JSONFunctions {
      * @param   consumer            the {@link IntConsumer}
      */
     public static void outputChar(char ch, boolean includeNonASCII, IntConsumer consumer) {
-        if (ch == '"' || ch == '\\') {
-            consumer.accept('\\');
-            consumer.accept(ch);
-        }
-        else if (ch == '\b') {
-            consumer.accept('\\');
-            consumer.accept('b');
+        outputChar(ch, JSONEscapePolicy.of(includeNonASCII), consumer);
+    }
+
+    /**
+     * Output a single character using an {@link IntConsumer}, escaping it if required by the specified
+     * {@link JSONEscapePolicy}.
+     *
+     * @param   ch                  the character
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @param   consumer            the {@link IntConsumer}
+     */
+    public static void outputChar(char ch, JSONEscapePolicy policy, IntConsumer consumer) {
+        if (ch < JSONEscapePolicy.TABLE_SIZE) {
+            String escape = policy.getEscape(ch);
+            if (escape == null)
+                consumer.accept(ch);
+            else if (consumer instanceof BulkCharConsumer)
+                ((BulkCharConsumer)consumer).accept(escape, 0, escape.length());
+            else {
+                for (int i = 0, n = escape.length(); i < n; i++)
+                    consumer.accept(escape.charAt(i));
+            }
         }
-        else if (ch == '\f') {
+        else if (policy.isEscapedAboveTable(ch)) {
             consumer.accept('\\');
-            consumer.accept('f');
+            consumer.accept('u');
+            IntOutput.output4HexLC(ch, consumer);
         }
-        else if (ch == '\n') {
-            consumer.accept('\\');
-            consumer.accept('n');
+        else
+            consumer.accept(ch);
+    }
+
+    /**
+     * Append a range of a {@link CharSequence} to an {@link Appendable}, escaping characters according to the
+     * specified {@link JSONEscapePolicy}.  Runs of characters that do not require escaping are passed to the
+     * {@link Appendable} in a single operation.
+     *
+     * @param   a                   the {@link Appendable}
+     * @param   cs                  the {@link CharSequence}
+     * @param   start               the start index
+     * @param   end                 the end index
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @throws  IOException         if thrown by the {@link Appendable}
+     */
+    private static void appendEscaped(Appendable a, CharSequence cs, int start, int end, JSONEscapePolicy policy)
+            throws IOException {
+        while (start < end) {
+            int i = JSONScanner.scanUnescaped(cs, start, end, policy);
+            if (i > start)
+                appendRun(a, cs, start, i);
+            if (i >= end)
+                break;
+            char ch = cs.charAt(i);
+            if (policy.isSurrogateChecked() && Character.isSurrogate(ch)) {
+                if (isSurrogatePair(cs, i, end)) {
+                    appendChar(a, ch, policy);
+                    ch = cs.charAt(++i);
+                }
+                else
+                    ch = policy.loneSurrogate(ch, i);
+            }
+            appendChar(a, ch, policy);
+            start = i + 1;
         }
-        else if (ch == '\r') {
-            consumer.accept('\\');
-            consumer.accept('r');
+    }
+
+    /**
+     * Store a portion of a {@link CharSequence} in a {@code char} array, applying JSON escaping rules (but without the
+     * enclosing double quotes).
+     *
+     * @param   array               the {@code char} array
+     * @param   offset              the offset in the array at which to store the characters
+     * @param   cs                  the {@link CharSequence}
+     * @param   start               the start index in the {@link CharSequence}
+     * @param   end                 the end index in the {@link CharSequence}
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @return                      the offset following the last character stored
+     */
+    static int storeEscaped(char[] array, int offset, CharSequence cs, int start, int end, JSONEscapePolicy policy) {
+        while (start < end) {
+            int i = JSONScanner.scanUnescaped(cs, start, end, policy);
+            if (cs instanceof String)
+                ((String)cs).getChars(start, i, array, offset);
+            else {
+                for (int j = start; j < i; j++)
+                    array[offset + j - start] = cs.charAt(j);
+            }
+            offset += i - start;
+            if (i >= end)
+                break;
+            char ch = cs.charAt(i);
+            if (policy.isSurrogateChecked() && Character.isSurrogate(ch)) {
+                if (isSurrogatePair(cs, i, end)) {
+                    offset = storeChar(array, offset, ch, policy);
+                    ch = cs.charAt(++i);
+                }
+                else
+                    ch = policy.loneSurrogate(ch, i);
+            }
+            offset = storeChar(array, offset, ch, policy);
+            start = i + 1;
         }
-        else if (ch == '\t') {
-            consumer.accept('\\');
-            consumer.accept('t');
+        return offset;
+    }
+
+    /**
+     * Store a single character in a {@code char} array, escaping it if required by the specified
+     * {@link JSONEscapePolicy}.
+     *
+     * @param   array               the {@code char} array
+     * @param   offset              the offset in the array at which to store the character
+     * @param   ch                  the character
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @return                      the offset following the last character stored
+     */
+    static int storeChar(char[] array, int offset, char ch, JSONEscapePolicy policy) {
+        if (ch < JSONEscapePolicy.TABLE_SIZE) {
+            String escape = policy.getEscape(ch);
+            if (escape == null)
+                array[offset++] = ch;
+            else {
+                escape.getChars(0, escape.length(), array, offset);
+                offset += escape.length();
+            }
         }
-        else if (ch < 0x20 || ch >= 0x7F && ch < 0xA0 || ch >= 0xA0 && !includeNonASCII) {
-            consumer.accept('\\');
-            consumer.accept('u');
-            IntOutput.output4HexLC(ch, consumer);
+        else if (policy.isEscapedAboveTable(ch)) {
+            array[offset++] = '\\';
+            array[offset++] = 'u';
+            array[offset++] = IntOutput.digitsHexLC[ch >> 12];
+            array[offset++] = IntOutput.digitsHexLC[(ch >> 8) & 0xF];
+            array[offset++] = IntOutput.digitsHexLC[(ch >> 4) & 0xF];
+            array[offset++] = IntOutput.digitsHexLC[ch & 0xF];
         }
         else
-            consumer.accept(ch);
+            array[offset++] = ch;
+        return offset;
+    }
+
+    /**
+     * Test whether the character at the specified index is a high surrogate followed (before the end index) by a low
+     * surrogate.
+     *
+     * @param   cs                  the {@link CharSequence}
+     * @param   i                   the index
+     * @param   end                 the end index
+     * @return                      {@code true} if the characters form a valid surrogate pair
+     */
+    static boolean isSurrogatePair(CharSequence cs, int i, int end) {
+        return Character.isHighSurrogate(cs.charAt(i)) && i + 1 < end && Character.isLowSurrogate(cs.charAt(i + 1));
+    }
+
+    /**
+     * Append a run of characters to an {@link Appendable}.  {@link Writer#append(CharSequence, int, int)} creates a
+     * substring, so in the case of a {@link Writer} and a {@link String} the characters are written directly.
+     *
+     * @param   a                   the {@link Appendable}
+     * @param   cs                  the {@link CharSequence}
+     * @param   start               the start index
+     * @param   end                 the end index
+     * @throws  IOException         if thrown by the {@link Appendable}
+     */
+    private static void appendRun(Appendable a, CharSequence cs, int start, int end) throws IOException {
+        if (a instanceof Writer && cs instanceof String)
+            ((Writer)a).write((String)cs, start, end - start);
+        else
+            a.append(cs, start, end);
     }
 
     /**
@@ -236,12 +570,12 @@ public class JSONFunctions {
             if (maxChars > 7 && n > maxChars) {
                 int m = (maxChars - 4) >> 1;
                 while (i < m)
-                    appendChar(sb, str.charAt(i++), true);
+                    appendChar(sb, str.charAt(i++), JSONEscapePolicy.INCLUDE_NON_ASCII);
                 sb.append(" ... ");
                 i = n - ((maxChars - 5) >> 1);
             }
             while (i < n)
-                appendChar(sb, str.charAt(i++), true);
+                appendChar(sb, str.charAt(i++), JSONEscapePolicy.INCLUDE_NON_ASCII);
         }
         catch (IOException ignore) {
             // can't happen - StringBuilder doesn't throw exception
@@ -259,23 +593,204 @@ public class JSONFunctions {
      * @throws  IllegalArgumentException  if there are any errors in the JSON
      */
     public static String parseString(TextMatcher tm) {
+        String text = tm.getText();
+        int end = tm.getLength();
+        int start = tm.getIndex();
+        int i = JSONScanner.scanString(text, start, end);
+        if (i >= end)
+            throw parseError(tm, end, ERROR_UNTERMINATED_STRING);
+        char ch = text.charAt(i);
+        if (ch == '"') {
+            setPosition(tm, i);
+            if (JSONMetrics.ENABLED)
+                JSONMetrics.recordParse(i - start, false);
+            return text.substring(start, i);
+        }
+        if (ch != '\\')
+            throw parseError(tm, i, ERROR_ILLEGAL_CHAR);
+        StringBuilder sb = parseEscaped(tm, start, i);
+        if (JSONMetrics.ENABLED)
+            JSONMetrics.recordParse(sb.length(), true);
+        return sb.toString();
+    }
+
+    /**
+     * Parse a JSON string from the current position of a {@link TextMatcher} (which must be positioned after the
+     * opening double quote), applying the specified {@link JSONSurrogatePolicy} to lone surrogates.  Surrogates may
+     * appear in the text either as characters or as Unicode escape sequences, and a high surrogate followed by a low
+     * surrogate (in either form) is decoded as a pair.  The index is left positioned after the closing double quote.
+     *
+     * @param   tm              a {@link TextMatcher}
+     * @param   policy          the {@link JSONSurrogatePolicy}
+     * @return                  the JSON string
+     * @throws  IllegalArgumentException  if there are any errors in the JSON, or (if the policy is
+     *                                    {@link JSONSurrogatePolicy#REJECT}) it contains a lone surrogate
+     */
+    public static String parseString(TextMatcher tm, JSONSurrogatePolicy policy) {
+        if (policy == JSONSurrogatePolicy.PASS)
+            return parseString(tm);
+        String text = tm.getText();
+        int end = tm.getLength();
         int start = tm.getIndex();
+        StringBuilder sb = null;
+        int runStart = start;
+        int i = start;
         while (true) {
-            if (tm.isAtEnd())
-                throw new IllegalArgumentException(UNTERMINATED_STRING);
-            char ch = tm.nextChar();
-            if (ch == '"')
-                return tm.getString(start, tm.getStart());
-            if (ch == '\\')
-                break;
+            char ch;
+            while (true) {
+                if (i >= end)
+                    throw parseError(tm, end, ERROR_UNTERMINATED_STRING);
+                ch = text.charAt(i);
+                if (ch < 0x20 || ch == '"' || ch == '\\' || Character.isSurrogate(ch))
+                    break;
+                i++;
+            }
+            if (ch == '"') {
+                setPosition(tm, i);
+                String result = sb == null ? text.substring(start, i) : sb.append(text, runStart, i).toString();
+                if (JSONMetrics.ENABLED)
+                    JSONMetrics.recordParse(result.length(), sb != null);
+                return result;
+            }
             if (ch < 0x20)
-                throw new IllegalArgumentException(ILLEGAL_CHAR);
+                throw parseError(tm, i, ERROR_ILLEGAL_CHAR);
+            int unitStart = i;
+            if (ch == '\\') {
+                int decoded = decodeEscape(text, i, end);
+                if (decoded < 0)
+                    throw escapeError(tm, i);
+                i += escapeLength(text, i);
+                if (sb == null)
+                    sb = new StringBuilder(unitStart - start + 16);
+                sb.append(text, runStart, unitStart);
+                runStart = i;
+                ch = (char)decoded;
+                if (!Character.isSurrogate(ch)) {
+                    sb.append(ch);
+                    continue;
+                }
+            }
+            else
+                i++;
+            int lowLength = Character.isHighSurrogate(ch) ? lowSurrogateLength(text, i, end) : 0;
+            if (lowLength == 1 && runStart <= unitStart) {
+                i++;
+                continue;
+            }
+            if (lowLength == 0 && policy == JSONSurrogatePolicy.REJECT)
+                throw parseError(tm, unitStart, ERROR_LONE_SURROGATE);
+            if (sb == null)
+                sb = new StringBuilder(unitStart - start + 16);
+            if (runStart <= unitStart)
+                sb.append(text, runStart, unitStart);
+            if (lowLength == 0)
+                sb.append(JSONSurrogatePolicy.REPLACEMENT_CHARACTER);
+            else {
+                sb.append(ch).append(lowLength == 1 ? text.charAt(i) : (char)decodeEscape(text, i, end));
+                i += lowLength;
+            }
+            runStart = i;
+        }
+    }
+
+    /**
+     * Get the length of the representation of a low surrogate at the specified index, either as a character or as a
+     * Unicode escape sequence.
+     *
+     * @param   text            the text
+     * @param   i               the index
+     * @param   end             the end index of the text
+     * @return                  1 for a character, 6 for an escape sequence, or 0 if there is no low surrogate
+     */
+    private static int lowSurrogateLength(String text, int i, int end) {
+        if (i >= end)
+            return 0;
+        char ch = text.charAt(i);
+        if (Character.isLowSurrogate(ch))
+            return 1;
+        if (ch == '\\' && i + 1 < end && text.charAt(i + 1) == 'u') {
+            int decoded = decodeEscape(text, i, end);
+            if (decoded >= 0 && Character.isLowSurrogate((char)decoded))
+                return 6;
         }
-        StringBuilder sb = new StringBuilder(tm.getCharSeq(start, tm.getStart()));
+        return 0;
+    }
+
+    /**
+     * Create the {@link JSONParseException} for an invalid escape sequence.
+     *
+     * @param   tm              the {@link TextMatcher}
+     * @param   i               the index of the backslash
+     * @return                  the exception
+     */
+    private static JSONParseException escapeError(TextMatcher tm, int i) {
+        String text = tm.getText();
+        int end = tm.getLength();
+        if (i + 1 >= end)
+            return parseError(tm, end, ERROR_UNTERMINATED_STRING);
+        if (text.charAt(i + 1) == 'u')
+            return unicodeError(tm, i + 2);
+        return parseError(tm, i + 1, ERROR_ILLEGAL_ESCAPE_SEQUENCE);
+    }
+
+    /**
+     * Parse a JSON string from the current position of a {@link TextMatcher} (which must be positioned after the
+     * opening double quote), using a {@link JSONStringCache} to obtain a canonical {@link String} for the result.  The
+     * hash code of the string is computed as the characters are scanned, and if the string is already present in the
+     * cache, the existing {@link String} is returned without allocating a new one.  The index is left positioned after
+     * the closing double quote.
+     *
+     * @param   tm              a {@link TextMatcher}
+     * @param   cache           the {@link JSONStringCache}
+     * @return                  the JSON string
+     * @throws  IllegalArgumentException  if there are any errors in the JSON
+     */
+    public static String parseString(TextMatcher tm, JSONStringCache cache) {
+        String text = tm.getText();
+        int start = tm.getIndex();
+        int length = tm.getLength();
+        int maxLength = cache.getMaxLength();
+        int end = maxLength >= length - start ? length : start + maxLength + 1;
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            char ch = text.charAt(i);
+            if (ch == '"') {
+                setPosition(tm, i);
+                if (JSONMetrics.ENABLED)
+                    JSONMetrics.recordParse(i - start, false);
+                return cache.get(text, start, i, hash);
+            }
+            if (ch == '\\') {
+                StringBuilder sb = parseEscaped(tm, start, i);
+                if (JSONMetrics.ENABLED)
+                    JSONMetrics.recordParse(sb.length(), true);
+                return cache.get(sb);
+            }
+            if (ch < 0x20)
+                throw parseError(tm, i, ERROR_ILLEGAL_CHAR);
+            hash = 31 * hash + ch;
+        }
+        return parseString(tm);
+    }
+
+    /**
+     * Parse the remainder of a JSON string containing escape sequences.
+     *
+     * @param   tm              the {@link TextMatcher}
+     * @param   start           the start index of the string content
+     * @param   i               the index of the first backslash
+     * @return                  a {@link StringBuilder} containing the decoded string
+     * @throws  IllegalArgumentException  if there are any errors in the JSON
+     */
+    private static StringBuilder parseEscaped(TextMatcher tm, int start, int i) {
+        String text = tm.getText();
+        int end = tm.getLength();
+        StringBuilder sb = new StringBuilder(i - start + 16);
+        sb.append(text, start, i);
         while (true) {
-            if (tm.isAtEnd())
-                throw new IllegalArgumentException(UNTERMINATED_STRING);
-            char ch = tm.nextChar();
+            if (++i >= end)
+                throw parseError(tm, end, ERROR_UNTERMINATED_STRING);
+            char ch = text.charAt(i++);
             if (ch == '"')
                 sb.append('"');
             else if (ch == '\\')
@@ -293,25 +808,313 @@ public class JSONFunctions {
             else if (ch == 't')
                 sb.append('\t');
             else if (ch == 'u') {
-                if (!tm.matchHex(4, 4))
-                    throw new IllegalArgumentException(ILLEGAL_UNICODE_SEQUENCE);
-                sb.append((char)tm.getResultHexInt());
+                if (i + 4 > end || !isHex4(text, i))
+                    throw unicodeError(tm, i);
+                sb.append((char)tm.getHexInt(i, i + 4));
+                i += 4;
             }
             else
-                throw new IllegalArgumentException(ILLEGAL_ESCAPE_SEQUENCE);
-            while (true) {
-                if (tm.isAtEnd())
-                    throw new IllegalArgumentException(UNTERMINATED_STRING);
-                ch = tm.nextChar();
-                if (ch == '"')
-                    return sb.toString();
-                if (ch == '\\')
+                throw parseError(tm, i - 1, ERROR_ILLEGAL_ESCAPE_SEQUENCE);
+            int runStart = i;
+            i = JSONScanner.scanString(text, i, end);
+            if (i >= end)
+                throw parseError(tm, end, ERROR_UNTERMINATED_STRING);
+            sb.append(text, runStart, i);
+            ch = text.charAt(i);
+            if (ch == '"') {
+                setPosition(tm, i);
+                return sb;
+            }
+            if (ch != '\\')
+                throw parseError(tm, i, ERROR_ILLEGAL_CHAR);
+        }
+    }
+
+    /**
+     * Get the length of the decoded form of a JSON string from the current position of a {@link TextMatcher} (which
+     * must be positioned after the opening double quote), without creating the decoded string.  The string is
+     * validated exactly as {@link #parseString(TextMatcher)} does; if it is valid, the index and start index of the
+     * {@link TextMatcher} are left unchanged.
+     *
+     * @param   tm              a {@link TextMatcher}
+     * @return                  the length of the decoded string
+     * @throws  IllegalArgumentException  if there are any errors in the JSON
+     */
+    public static int decodedLength(TextMatcher tm) {
+        int index = tm.getIndex();
+        int start = tm.getStart();
+        int length = skipString(tm);
+        tm.setIndex(index);
+        tm.setStart(start);
+        return length;
+    }
+
+    /**
+     * Skip a JSON string from the current position of a {@link TextMatcher} (which must be positioned after the
+     * opening double quote), validating it exactly as {@link #parseString(TextMatcher)} does, but without creating the
+     * decoded string.  The index is left positioned after the closing double quote (and the start index at the closing
+     * double quote).
+     *
+     * <p>The function returns the length of the decoded string; if this is less than the number of characters between
+     * the double quotes (the start index on return minus the index on entry), the string contained escape
+     * sequences.</p>
+     *
+     * @param   tm              a {@link TextMatcher}
+     * @return                  the length of the decoded string
+     * @throws  IllegalArgumentException  if there are any errors in the JSON
+     */
+    public static int skipString(TextMatcher tm) {
+        int result = scanString(tm);
+        if (result < 0)
+            throw result == -ERROR_ILLEGAL_UNICODE_SEQUENCE ? unicodeError(tm, tm.getIndex()) :
+                    parseError(tm, tm.getIndex(), -result);
+        return result;
+    }
+
+    /**
+     * Validate a JSON string from the current position of a {@link TextMatcher} (which must be positioned after the
+     * opening double quote), returning an error code instead of throwing an exception.  If the string is valid, the
+     * function returns zero, and the index is left positioned after the closing double quote (as with
+     * {@link #skipString(TextMatcher)}).  If the string is not valid, the function returns one of the {@code ERROR_}
+     * codes, and the index is left positioned at the offset of the error (the offending character, or the end of the
+     * text in the case of an unterminated string).  No objects are created in either case.
+     *
+     * @param   tm              a {@link TextMatcher}
+     * @return                  zero if the string is valid, otherwise an error code
+     */
+    public static int validateString(TextMatcher tm) {
+        int result = scanString(tm);
+        return result < 0 ? -result : 0;
+    }
+
+    /**
+     * Scan a JSON string, returning either the decoded length or (if the string is not valid) the negated error code.
+     * On error, the index of the {@link TextMatcher} is set to the offset of the error.
+     *
+     * @param   tm              a {@link TextMatcher}
+     * @return                  the length of the decoded string, or the negated error code
+     */
+    private static int scanString(TextMatcher tm) {
+        String text = tm.getText();
+        int end = tm.getLength();
+        int i = tm.getIndex();
+        int length = 0;
+        int error;
+        while (true) {
+            int runStart = i;
+            i = JSONScanner.scanString(text, i, end);
+            length += i - runStart;
+            if (i >= end) {
+                error = ERROR_UNTERMINATED_STRING;
+                break;
+            }
+            char ch = text.charAt(i);
+            if (ch == '"') {
+                setPosition(tm, i);
+                return length;
+            }
+            if (ch != '\\') {
+                error = ERROR_ILLEGAL_CHAR;
+                break;
+            }
+            if (++i >= end) {
+                error = ERROR_UNTERMINATED_STRING;
+                break;
+            }
+            ch = text.charAt(i++);
+            if (ch == 'u') {
+                if (i + 4 > end || !isHex4(text, i)) {
+                    error = ERROR_ILLEGAL_UNICODE_SEQUENCE;
+                    break;
+                }
+                i += 4;
+            }
+            else if (ch != '"' && ch != '\\' && ch != '/' && ch != 'b' && ch != 'f' && ch != 'n' && ch != 'r' &&
+                    ch != 't') {
+                i--;
+                error = ERROR_ILLEGAL_ESCAPE_SEQUENCE;
+                break;
+            }
+            length++;
+        }
+        tm.setIndex(i);
+        return -error;
+    }
+
+    /**
+     * Parse a JSON string from the current position of a {@link TextMatcher} (which must be positioned after the
+     * opening double quote), returning a {@link JSONStringView} over the source text instead of a {@link String}.  The
+     * string is validated, but escape sequences are not decoded until the content is accessed.  The index is left
+     * positioned after the closing double quote.
+     *
+     * @param   tm              a {@link TextMatcher}
+     * @return                  a {@link JSONStringView} of the JSON string
+     * @throws  IllegalArgumentException  if there are any errors in the JSON
+     */
+    public static JSONStringView parseStringView(TextMatcher tm) {
+        int start = tm.getIndex();
+        int length = skipString(tm);
+        return new JSONStringView(tm.getText(), start, tm.getStart(), length);
+    }
+
+    /**
+     * Match a JSON string from the current position of a {@link TextMatcher} (which must be positioned after the
+     * opening double quote) against a target string, without creating the decoded string.  Escape sequences in the
+     * JSON string are decoded for the comparison, so (for example) {@code "\u0041"} matches {@code "A"}.  Whether the
+     * string matches or not, the index is left positioned after the closing double quote, and the entire string is
+     * validated exactly as {@link #parseString(TextMatcher)} does.
+     *
+     * @param   tm              a {@link TextMatcher}
+     * @param   target          the target string
+     * @return                  {@code true} if the decoded JSON string is equal to the target
+     * @throws  IllegalArgumentException  if there are any errors in the JSON
+     */
+    public static boolean matchString(TextMatcher tm, CharSequence target) {
+        String text = tm.getText();
+        int end = tm.getLength();
+        int i = tm.getIndex();
+        int n = target.length();
+        int j = 0;
+        while (i < end) {
+            char ch = text.charAt(i);
+            if (ch == '"') {
+                if (j != n)
                     break;
-                if (ch < 0x20)
-                    throw new IllegalArgumentException(ILLEGAL_CHAR);
-                sb.append(ch);
+                setPosition(tm, i);
+                return true;
             }
+            int decoded = ch == '\\' ? decodeEscape(text, i, end) : ch < 0x20 ? -1 : ch;
+            if (decoded < 0 || j >= n || target.charAt(j) != decoded)
+                break;
+            i += ch == '\\' ? escapeLength(text, i) : 1;
+            j++;
+        }
+        tm.setIndex(i);
+        skipString(tm);
+        return false;
+    }
+
+    /**
+     * Decode an escape sequence in a JSON string.
+     *
+     * @param   text            the text
+     * @param   i               the index of the backslash
+     * @param   end             the end index of the text
+     * @return                  the decoded character, or -1 if the escape sequence is invalid or incomplete
+     */
+    static int decodeEscape(String text, int i, int end) {
+        if (++i >= end)
+            return -1;
+        switch (text.charAt(i)) {
+        case '"':
+            return '"';
+        case '\\':
+            return '\\';
+        case '/':
+            return '/';
+        case 'b':
+            return '\b';
+        case 'f':
+            return '\f';
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 't':
+            return '\t';
+        case 'u':
+            if (i + 5 > end)
+                return -1;
+            int result = 0;
+            for (int j = i + 1; j < i + 5; j++) {
+                char ch = text.charAt(j);
+                if (!TextMatcher.isHexDigit(ch))
+                    return -1;
+                result = (result << 4) | Character.digit(ch, 16);
+            }
+            return result;
         }
+        return -1;
+    }
+
+    /**
+     * Get the length of a valid escape sequence in a JSON string.
+     *
+     * @param   text            the text
+     * @param   i               the index of the backslash
+     * @return                  the length of the escape sequence
+     */
+    static int escapeLength(String text, int i) {
+        return text.charAt(i + 1) == 'u' ? 6 : 2;
+    }
+
+    /**
+     * Test whether the four characters at the specified index are all hexadecimal digits.
+     *
+     * @param   text        the text
+     * @param   index       the index
+     * @return              {@code true} if the characters are all hexadecimal digits
+     */
+    private static boolean isHex4(String text, int index) {
+        return TextMatcher.isHexDigit(text.charAt(index)) && TextMatcher.isHexDigit(text.charAt(index + 1)) &&
+                TextMatcher.isHexDigit(text.charAt(index + 2)) && TextMatcher.isHexDigit(text.charAt(index + 3));
+    }
+
+    /**
+     * Set the position of a {@link TextMatcher} following the processing of a character, leaving the start index at
+     * the character and the index immediately after it (as {@link TextMatcher#nextChar()} does).
+     *
+     * @param   tm          the {@link TextMatcher}
+     * @param   i           the index of the character
+     */
+    private static void setPosition(TextMatcher tm, int i) {
+        tm.setIndex(i + 1);
+        tm.setStart(i);
+    }
+
+    /**
+     * Create a {@link JSONParseException} for an error at a given index, leaving the {@link TextMatcher} positioned at
+     * the offending character (or at the given index, if that is the end of the text).
+     *
+     * @param   tm          the {@link TextMatcher}
+     * @param   i           the index of the error
+     * @param   errorCode   the error code
+     * @return              the exception
+     */
+    static JSONParseException parseError(TextMatcher tm, int i, int errorCode) {
+        if (i < tm.getLength())
+            setPosition(tm, i);
+        else
+            tm.setIndex(i);
+        return new JSONParseException(errorCode, i);
+    }
+
+    /**
+     * Create a {@link JSONParseException} for an invalid {@code \}{@code u} escape sequence, leaving the
+     * {@link TextMatcher} index at the first hex digit (and the start index at the {@code u}), as the string parsing
+     * functions always have.
+     *
+     * @param   tm          the {@link TextMatcher}
+     * @param   i           the index of the first hex digit
+     * @return              the exception
+     */
+    private static JSONParseException unicodeError(TextMatcher tm, int i) {
+        tm.setIndex(i);
+        tm.setStart(i - 1);
+        return new JSONParseException(ERROR_ILLEGAL_UNICODE_SEQUENCE, i);
+    }
+
+    /**
+     * Skip any whitespace (as defined by the JSON specification) at the current position of a {@link TextMatcher}.  On
+     * return, the index is positioned at the next non-space character (or the end of the text), and the start index is
+     * at the original position, so that the skipped whitespace is the current match result.
+     *
+     * @param   tm          the {@link TextMatcher}
+     */
+    public static void skipSpaces(TextMatcher tm) {
+        int index = tm.getIndex();
+        tm.setIndex(JSONScanner.scanSpaces(tm.getText(), index, tm.getLength()));
+        tm.setStart(index);
     }
 
     /**
@@ -0,0 +1,173 @@
+/*
+ * @(#) JSONKeySet.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import java.util.Arrays;
+import java.util.List;
+
+import io.jstuff.text.TextMatcher;
+
+/**
+ * A pre-compiled set of keys (typically the property names expected in a JSON object) which may be matched against a
+ * JSON string in the text, without decoding the string.  The keys are held in a trie, which is walked as the characters
+ * of the JSON string (including escape sequences) are decoded.
+ *
+ * <p>Instances of this class are immutable, and may be shared between threads.</p>
+ *
+ * @author  Peter Wall
+ */
+public final class JSONKeySet {
+
+    private final String[] keys;
+    private final Node root;
+
+    /**
+     * Construct a {@code JSONKeySet} from an array of keys.  The index returned by {@link #match(TextMatcher)} is the
+     * index of the key in the array.
+     *
+     * @param   keys        the keys
+     * @throws  IllegalArgumentException  if any key is {@code null} or duplicated
+     */
+    public JSONKeySet(String... keys) {
+        this.keys = keys.clone();
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null)
+                throw new IllegalArgumentException("Key must not be null");
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> this.keys[a].compareTo(this.keys[b]));
+        for (int i = 1; i < order.length; i++)
+            if (this.keys[order[i]].equals(this.keys[order[i - 1]]))
+                throw new IllegalArgumentException("Duplicate key: " + this.keys[order[i]]);
+        root = buildNode(order, 0, order.length, 0);
+    }
+
+    /**
+     * Construct a {@code JSONKeySet} from a {@link List} of keys.  The index returned by {@link #match(TextMatcher)} is
+     * the index of the key in the list.
+     *
+     * @param   keys        the keys
+     * @throws  IllegalArgumentException  if any key is {@code null} or duplicated
+     */
+    public JSONKeySet(List<String> keys) {
+        this(keys.toArray(new String[0]));
+    }
+
+    private Node buildNode(Integer[] order, int from, int to, int depth) {
+        int keyIndex = -1;
+        if (from < to && keys[order[from]].length() == depth)
+            keyIndex = order[from++];
+        int count = 0;
+        for (int i = from; i < to; count++) {
+            char ch = keys[order[i]].charAt(depth);
+            while (++i < to && keys[order[i]].charAt(depth) == ch)
+                ;
+        }
+        char[] chars = new char[count];
+        Node[] children = new Node[count];
+        for (int i = from, n = 0; i < to; n++) {
+            int groupStart = i;
+            char ch = keys[order[i]].charAt(depth);
+            while (++i < to && keys[order[i]].charAt(depth) == ch)
+                ;
+            chars[n] = ch;
+            children[n] = buildNode(order, groupStart, i, depth + 1);
+        }
+        return new Node(chars, children, keyIndex);
+    }
+
+    /**
+     * Match a JSON string from the current position of a {@link TextMatcher} (which must be positioned after the
+     * opening double quote) against the keys in the set.  Whether the string matches or not, the index is left
+     * positioned after the closing double quote, and the entire string is validated exactly as
+     * {@link JSONFunctions#parseString(TextMatcher)} does.
+     *
+     * @param   tm          a {@link TextMatcher}
+     * @return              the index of the matching key, or -1 if the string does not match any key
+     * @throws  IllegalArgumentException  if there are any errors in the JSON
+     */
+    public int match(TextMatcher tm) {
+        String text = tm.getText();
+        int end = tm.getLength();
+        int i = tm.getIndex();
+        int result = -1;
+        Node node = root;
+        while (i < end) {
+            char ch = text.charAt(i);
+            if (ch == '"') {
+                result = node.keyIndex;
+                break;
+            }
+            int decoded = ch == '\\' ? JSONFunctions.decodeEscape(text, i, end) : ch < 0x20 ? -1 : ch;
+            if (decoded < 0 || (node = node.child((char)decoded)) == null)
+                break;
+            i += ch == '\\' ? JSONFunctions.escapeLength(text, i) : 1;
+        }
+        tm.setIndex(i);
+        JSONFunctions.skipString(tm);
+        return result;
+    }
+
+    /**
+     * Get the key at the specified index.
+     *
+     * @param   index       the index
+     * @return              the key
+     */
+    public String getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Get the number of keys in the set.
+     *
+     * @return              the number of keys
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    private static final class Node {
+
+        private final char[] chars;
+        private final Node[] children;
+        private final int keyIndex;
+
+        private Node(char[] chars, Node[] children, int keyIndex) {
+            this.chars = chars;
+            this.children = children;
+            this.keyIndex = keyIndex;
+        }
+
+        private Node child(char ch) {
+            int index = Arrays.binarySearch(chars, ch);
+            return index >= 0 ? children[index] : null;
+        }
+
+    }
+
+}
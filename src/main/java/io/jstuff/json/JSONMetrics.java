@@ -0,0 +1,243 @@
+/*
+ * @(#) JSONMetrics.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional instrumentation of the string escaping and parsing functions.  Metrics are collected only if the system
+ * property {@code io.jstuff.json.metrics} is set to {@code true} when this class is initialised; the flag is held in a
+ * {@code static final} field, so when metrics are disabled the JIT compiler removes the instrumentation code entirely.
+ *
+ * <p>The metrics consist of a set of {@link Counter}s and a set of {@link Histogram}s of string lengths, each
+ * implemented using {@link LongAdder}s to minimise contention between threads.  The histograms use power-of-two
+ * buckets: bucket 0 counts strings of length 0, and bucket {@code n} counts strings of length 2<sup>n-1</sup> to
+ * 2<sup>n</sup>-1.</p>
+ *
+ * @author  Peter Wall
+ */
+public final class JSONMetrics {
+
+    public static final String PROPERTY_NAME = "io.jstuff.json.metrics";
+    public static final boolean ENABLED = Boolean.getBoolean(PROPERTY_NAME);
+    public static final int HISTOGRAM_BUCKETS = 32;
+
+    /**
+     * The counters.
+     */
+    public enum Counter {
+        /** Strings escaped in quoted form (by {@code appendString}, {@code escapeString}, {@code outputString} and
+         * {@code writeString} in {@link JSONFunctions} and {@link JSONUTF8Functions}, {@link JSONEscapeBuffer},
+         * {@link JSONEscapingWriter} (counted on close) and {@link JSONBatchEscaper} (one per string)) */
+        ESCAPE_STRING,
+        /** Strings escaped in unquoted form ({@code escapeStringUnquoted}) */
+        ESCAPE_UNQUOTED,
+        /** Calls to {@code escapeStringUnquoted} that returned the original string unmodified */
+        ESCAPE_UNQUOTED_UNCHANGED,
+        /** Strings parsed ({@code parseString}) */
+        PARSE_STRING,
+        /** Strings parsed that required decoding using a {@link StringBuilder} */
+        PARSE_DECODED
+    }
+
+    /**
+     * The histograms of string lengths.
+     */
+    public enum Histogram {
+        /** Length of strings escaped (before escaping) */
+        ESCAPE_LENGTH,
+        /** Length of strings parsed (after decoding) */
+        PARSE_LENGTH
+    }
+
+    private static final LongAdder[] counters = newAdders(Counter.values().length);
+    private static final LongAdder[][] histograms = new LongAdder[Histogram.values().length][];
+
+    static {
+        for (int i = 0; i < histograms.length; i++)
+            histograms[i] = newAdders(HISTOGRAM_BUCKETS);
+    }
+
+    private JSONMetrics() {}
+
+    /**
+     * Record the escaping of a string in quoted form.
+     *
+     * @param   length      the length of the string
+     */
+    static void recordEscape(int length) {
+        counters[Counter.ESCAPE_STRING.ordinal()].increment();
+        histograms[Histogram.ESCAPE_LENGTH.ordinal()][bucket(length)].increment();
+    }
+
+    /**
+     * Record the escaping of a string in unquoted form.
+     *
+     * @param   length      the length of the string
+     * @param   unchanged   {@code true} if the original string was returned unmodified
+     */
+    static void recordEscapeUnquoted(int length, boolean unchanged) {
+        counters[Counter.ESCAPE_UNQUOTED.ordinal()].increment();
+        if (unchanged)
+            counters[Counter.ESCAPE_UNQUOTED_UNCHANGED.ordinal()].increment();
+        histograms[Histogram.ESCAPE_LENGTH.ordinal()][bucket(length)].increment();
+    }
+
+    /**
+     * Record the parsing of a string.
+     *
+     * @param   length      the length of the resulting string
+     * @param   decoded     {@code true} if the string required decoding using a {@link StringBuilder}
+     */
+    static void recordParse(int length, boolean decoded) {
+        counters[Counter.PARSE_STRING.ordinal()].increment();
+        if (decoded)
+            counters[Counter.PARSE_DECODED.ordinal()].increment();
+        histograms[Histogram.PARSE_LENGTH.ordinal()][bucket(length)].increment();
+    }
+
+    /**
+     * Get the histogram bucket for a string length.
+     *
+     * @param   length      the length
+     * @return              the bucket number
+     */
+    public static int bucket(int length) {
+        return 32 - Integer.numberOfLeadingZeros(length);
+    }
+
+    /**
+     * Get the lowest string length counted in a histogram bucket.
+     *
+     * @param   bucket      the bucket number
+     * @return              the lowest length
+     */
+    public static int bucketLowerBound(int bucket) {
+        return bucket == 0 ? 0 : 1 << (bucket - 1);
+    }
+
+    /**
+     * Take a snapshot of the current values of the metrics.  The snapshot is not atomic; if metrics are being recorded
+     * concurrently, the individual values may not be consistent with each other.
+     *
+     * @return              the {@link Snapshot}
+     */
+    public static Snapshot snapshot() {
+        long[] counterValues = new long[counters.length];
+        for (int i = 0; i < counters.length; i++)
+            counterValues[i] = counters[i].sum();
+        long[][] histogramValues = new long[histograms.length][HISTOGRAM_BUCKETS];
+        for (int i = 0; i < histograms.length; i++)
+            for (int j = 0; j < HISTOGRAM_BUCKETS; j++)
+                histogramValues[i][j] = histograms[i][j].sum();
+        return new Snapshot(counterValues, histogramValues);
+    }
+
+    /**
+     * Reset all metrics to zero.
+     */
+    public static void reset() {
+        for (LongAdder counter : counters)
+            counter.reset();
+        for (LongAdder[] histogram : histograms)
+            for (LongAdder bucket : histogram)
+                bucket.reset();
+    }
+
+    private static LongAdder[] newAdders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+
+    /**
+     * An immutable snapshot of the metrics.
+     */
+    public static final class Snapshot {
+
+        private final long[] counterValues;
+        private final long[][] histogramValues;
+
+        private Snapshot(long[] counterValues, long[][] histogramValues) {
+            this.counterValues = counterValues;
+            this.histogramValues = histogramValues;
+        }
+
+        /**
+         * Get the value of a counter.
+         *
+         * @param   counter     the {@link Counter}
+         * @return              the value
+         */
+        public long getCount(Counter counter) {
+            return counterValues[counter.ordinal()];
+        }
+
+        /**
+         * Get the values of a histogram (the returned array is a copy, and may be modified by the caller).
+         *
+         * @param   histogram   the {@link Histogram}
+         * @return              the counts for each bucket
+         */
+        public long[] getHistogram(Histogram histogram) {
+            return histogramValues[histogram.ordinal()].clone();
+        }
+
+        /**
+         * Create a string representation of the snapshot, listing the counters and the non-empty histogram buckets
+         * (each identified by the lowest length it counts).
+         *
+         * @return              the string representation
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (Counter counter : Counter.values()) {
+                if (sb.length() > 0)
+                    sb.append(", ");
+                sb.append(counter).append('=').append(counterValues[counter.ordinal()]);
+            }
+            for (Histogram histogram : Histogram.values()) {
+                sb.append(", ").append(histogram).append("={");
+                long[] values = histogramValues[histogram.ordinal()];
+                boolean first = true;
+                for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+                    if (values[i] != 0) {
+                        if (!first)
+                            sb.append(", ");
+                        sb.append(bucketLowerBound(i)).append('=').append(values[i]);
+                        first = false;
+                    }
+                }
+                sb.append('}');
+            }
+            return sb.toString();
+        }
+
+    }
+
+}
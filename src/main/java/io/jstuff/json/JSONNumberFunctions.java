@@ -0,0 +1,818 @@
+/*
+ * @(#) JSONNumberFunctions.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.function.IntConsumer;
+
+import io.jstuff.text.TextMatcher;
+
+import static io.jstuff.json.JSONFunctions.ERROR_ILLEGAL_NUMBER;
+import static io.jstuff.json.JSONFunctions.ERROR_NUMBER_NOT_INTEGER;
+import static io.jstuff.json.JSONFunctions.ERROR_NUMBER_OUT_OF_RANGE;
+import static io.jstuff.json.JSONFunctions.parseError;
+
+/**
+ * Functions to parse and format JSON numbers.
+ * <p>
+ * The parsing functions read a number in the form specified by the JSON grammar directly from a {@link TextMatcher},
+ * without creating an intermediate {@link String}.  Integer values are accumulated directly; floating point values use
+ * the Clinger fast path where the result is exact, and the Eisel-Lemire algorithm otherwise, falling back to
+ * {@link Double#parseDouble(String)} only for the rare inputs of more than 19 significant digits whose rounding can not
+ * be determined from the first 19.
+ * <p>
+ * The formatting functions output the shortest decimal representation that will parse back to the same value, using
+ * the Schubfach algorithm of Raffaello Giulietti.  The output is identical to that of {@link Double#toString(double)}
+ * and {@link Float#toString(float)} in Java 19 and later, but it is written directly to an {@link Appendable} or an
+ * {@link IntConsumer}, without creating a {@link String}.
+ *
+ * @author  Peter Wall
+ */
+public class JSONNumberFunctions {
+
+    public static final String NOT_FINITE = "JSON number must be finite";
+
+    private static final long MASK_32 = 0xFFFFFFFFL;
+    private static final long MASK_63 = 0x7FFFFFFFFFFFFFFFL;
+
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+    private static final long SIGNIFICAND_LIMIT = 1_000_000_000_000_000_000L;
+    private static final long INFINITY_BITS = 0x7FF0000000000000L;
+
+    private static final double[] exactPowersOfTen = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19,
+        1e20, 1e21, 1e22
+    };
+
+    private static final long[] longPowersOfTen = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+        10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+        1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    // Eisel-Lemire: 128-bit approximations of 5^q for q in [FIVE_Q_MIN, FIVE_Q_MAX], normalised to [2^127, 2^128)
+
+    private static final int FIVE_Q_MIN = -342;
+    private static final int FIVE_Q_MAX = 308;
+    private static final long[] powersOfFive = createPowersOfFive();
+
+    // Schubfach (double)
+
+    private static final int DOUBLE_P = 53;
+    private static final int DOUBLE_Q_MIN = -1074;
+    private static final long DOUBLE_C_MIN = 1L << (DOUBLE_P - 1);
+    private static final int DOUBLE_C_TINY = 3;
+
+    // Schubfach (float)
+
+    private static final int FLOAT_P = 24;
+    private static final int FLOAT_Q_MIN = -149;
+    private static final int FLOAT_C_MIN = 1 << (FLOAT_P - 1);
+    private static final int FLOAT_C_TINY = 8;
+
+    // Schubfach: 126-bit approximations of 10^-k for k in [G_K_MIN, G_K_MAX], each split into 63-bit halves
+
+    private static final int G_K_MIN = -324;
+    private static final int G_K_MAX = 292;
+    private static final long[] scaledPowersOfTen = createScaledPowersOfTen();
+
+    /**
+     * Parse a JSON number as an {@code int}.  On entry, the index of the {@link TextMatcher} must be positioned at the
+     * start of the number; on successful exit the start index will be at the start of the number and the index will be
+     * immediately after it.
+     *
+     * @param   tm          the {@link TextMatcher}
+     * @return              the value
+     * @throws  JSONParseException  if the number is not valid JSON, is not an integer, or is outside the range of
+     *                              {@code int}
+     */
+    public static int parseInt(TextMatcher tm) {
+        return (int)parseInteger(tm, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Parse a JSON number as a {@code long}.  On entry, the index of the {@link TextMatcher} must be positioned at the
+     * start of the number; on successful exit the start index will be at the start of the number and the index will be
+     * immediately after it.
+     *
+     * @param   tm          the {@link TextMatcher}
+     * @return              the value
+     * @throws  JSONParseException  if the number is not valid JSON, is not an integer, or is outside the range of
+     *                              {@code long}
+     */
+    public static long parseLong(TextMatcher tm) {
+        return parseInteger(tm, Long.MIN_VALUE);
+    }
+
+    /**
+     * Parse a JSON integer, accumulating the value as a negative number so that the minimum value may be represented.
+     *
+     * @param   tm          the {@link TextMatcher}
+     * @param   minValue    the minimum value of the target type
+     * @return              the value
+     */
+    private static long parseInteger(TextMatcher tm, long minValue) {
+        String text = tm.getText();
+        int end = tm.getLength();
+        int start = tm.getIndex();
+        int i = start;
+        boolean negative = false;
+        if (i < end && text.charAt(i) == '-') {
+            negative = true;
+            i++;
+        }
+        if (i >= end || !isDigit(text.charAt(i)))
+            throw parseError(tm, i, ERROR_ILLEGAL_NUMBER);
+        char ch = text.charAt(i++);
+        long result = '0' - ch;
+        if (ch == '0') {
+            if (i < end && isDigit(text.charAt(i)))
+                throw parseError(tm, i, ERROR_ILLEGAL_NUMBER);
+        }
+        else {
+            long limit = minValue / 10;
+            while (i < end && isDigit(ch = text.charAt(i))) {
+                int digit = ch - '0';
+                if (result < limit || (result *= 10) < minValue + digit)
+                    throw parseError(tm, start, ERROR_NUMBER_OUT_OF_RANGE);
+                result -= digit;
+                i++;
+            }
+        }
+        if (i < end && ((ch = text.charAt(i)) == '.' || ch == 'e' || ch == 'E'))
+            throw parseError(tm, i, ERROR_NUMBER_NOT_INTEGER);
+        if (!negative) {
+            if (result == minValue)
+                throw parseError(tm, start, ERROR_NUMBER_OUT_OF_RANGE);
+            result = -result;
+        }
+        setRange(tm, start, i);
+        return result;
+    }
+
+    /**
+     * Parse a JSON number as a {@code double}.  On entry, the index of the {@link TextMatcher} must be positioned at
+     * the start of the number; on successful exit the start index will be at the start of the number and the index
+     * will be immediately after it.  The result is correctly rounded, as for {@link Double#parseDouble(String)}.
+     *
+     * @param   tm          the {@link TextMatcher}
+     * @return              the value
+     * @throws  JSONParseException  if the number is not valid JSON, or its magnitude is too large to be represented as
+     *                              a finite {@code double}
+     */
+    public static double parseDouble(TextMatcher tm) {
+        String text = tm.getText();
+        int end = tm.getLength();
+        int start = tm.getIndex();
+        int i = start;
+        boolean negative = false;
+        if (i < end && text.charAt(i) == '-') {
+            negative = true;
+            i++;
+        }
+        if (i >= end || !isDigit(text.charAt(i)))
+            throw parseError(tm, i, ERROR_ILLEGAL_NUMBER);
+        long significand = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        char ch = text.charAt(i++);
+        if (ch == '0') {
+            if (i < end && isDigit(text.charAt(i)))
+                throw parseError(tm, i, ERROR_ILLEGAL_NUMBER);
+        }
+        else {
+            significand = ch - '0';
+            while (i < end && isDigit(ch = text.charAt(i))) {
+                if (Long.compareUnsigned(significand, SIGNIFICAND_LIMIT) < 0)
+                    significand = significand * 10 + ch - '0';
+                else {
+                    exponent++;
+                    if (ch != '0')
+                        truncated = true;
+                }
+                i++;
+            }
+        }
+        if (i < end && text.charAt(i) == '.') {
+            i++;
+            if (i >= end || !isDigit(text.charAt(i)))
+                throw parseError(tm, i, ERROR_ILLEGAL_NUMBER);
+            while (i < end && isDigit(ch = text.charAt(i))) {
+                if (Long.compareUnsigned(significand, SIGNIFICAND_LIMIT) < 0) {
+                    significand = significand * 10 + ch - '0';
+                    exponent--;
+                }
+                else if (ch != '0')
+                    truncated = true;
+                i++;
+            }
+        }
+        if (i < end && ((ch = text.charAt(i)) == 'e' || ch == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && ((ch = text.charAt(i)) == '-' || ch == '+')) {
+                negativeExponent = ch == '-';
+                i++;
+            }
+            if (i >= end || !isDigit(text.charAt(i)))
+                throw parseError(tm, i, ERROR_ILLEGAL_NUMBER);
+            int explicitExponent = 0;
+            while (i < end && isDigit(ch = text.charAt(i))) {
+                if (explicitExponent < 100_000)
+                    explicitExponent = explicitExponent * 10 + ch - '0';
+                i++;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        long bits = significand == 0 ? 0 : toDoubleBits(significand, exponent);
+        if (truncated && bits != toDoubleBits(significand + 1, exponent))
+            bits = Double.doubleToRawLongBits(Double.parseDouble(text.substring(negative ? start + 1 : start, i)));
+        if (bits == INFINITY_BITS)
+            throw parseError(tm, start, ERROR_NUMBER_OUT_OF_RANGE);
+        setRange(tm, start, i);
+        double result = Double.longBitsToDouble(bits);
+        return negative ? -result : result;
+    }
+
+    /**
+     * Set the start index and index of a {@link TextMatcher} to the bounds of a matched number.
+     *
+     * @param   tm          the {@link TextMatcher}
+     * @param   start       the start of the number
+     * @param   end         the end of the number
+     */
+    private static void setRange(TextMatcher tm, int start, int end) {
+        tm.setIndex(end);
+        tm.setStart(start);
+    }
+
+    /**
+     * Convert a significand of up to 19 decimal digits and a decimal exponent to the bits of the nearest {@code double}
+     * (ignoring sign).  Returns the bits of positive infinity if the value is too large.
+     *
+     * @param   w           the significand (non-zero, treated as unsigned)
+     * @param   q           the decimal exponent
+     * @return              the bits of the {@code double}
+     */
+    private static long toDoubleBits(long w, int q) {
+        if (Long.compareUnsigned(w, MAX_EXACT_DOUBLE) <= 0 && q >= -22 && q <= 22) {
+            double d = (double)w;
+            d = q < 0 ? d / exactPowersOfTen[-q] : d * exactPowersOfTen[q];
+            return Double.doubleToRawLongBits(d);
+        }
+        long bits = eiselLemire(w, q);
+        return bits >= 0 ? bits : Double.doubleToRawLongBits(Double.parseDouble(Long.toUnsignedString(w) + "E" + q));
+    }
+
+    /**
+     * Compute the bits of the {@code double} nearest to {@code w * 10^q} using the Eisel-Lemire algorithm.  Returns
+     * -1 in the (theoretically unreachable) case where the 128-bit product is not precise enough to determine rounding.
+     *
+     * @param   w           the significand (non-zero, treated as unsigned)
+     * @param   q           the decimal exponent
+     * @return              the bits of the {@code double}, or -1
+     */
+    private static long eiselLemire(long w, int q) {
+        if (q < FIVE_Q_MIN)
+            return 0;
+        if (q > FIVE_Q_MAX)
+            return INFINITY_BITS;
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+        int index = (q - FIVE_Q_MIN) << 1;
+        long high = unsignedMultiplyHigh(w, powersOfFive[index]);
+        long low = w * powersOfFive[index];
+        if ((high & 0x1FF) == 0x1FF) {
+            long secondHigh = unsignedMultiplyHigh(w, powersOfFive[index + 1]);
+            low += secondHigh;
+            if (Long.compareUnsigned(secondHigh, low) > 0)
+                high++;
+            if (low == -1L && (q < -27 || q > 55))
+                return -1;
+        }
+        int upperBit = (int)(high >>> 63);
+        int shift = upperBit + 9;
+        long mantissa = high >>> shift;
+        int power2 = (217_706 * q >> 16) + 63 + upperBit - lz + 1023;
+        if (power2 <= 0) {
+            if (-power2 + 1 >= 64)
+                return 0;
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            return mantissa < (1L << 52) ? mantissa : 1L << 52;
+        }
+        if (Long.compareUnsigned(low, 1) <= 0 && q >= -4 && q <= 23 && (mantissa & 3) == 1 &&
+                mantissa << shift == high)
+            mantissa &= ~1L;
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (2L << 52)) {
+            mantissa = 1L << 52;
+            power2++;
+        }
+        if (power2 >= 0x7FF)
+            return INFINITY_BITS;
+        return mantissa & ~(1L << 52) | (long)power2 << 52;
+    }
+
+    /**
+     * Append a {@code double} to an {@link Appendable}, using the shortest decimal representation that will parse back
+     * to the same value.  The output is the same as that of {@link Double#toString(double)} in Java 19 and later.
+     *
+     * @param   a           the {@link Appendable}
+     * @param   d           the value
+     * @throws  IllegalArgumentException    if the value is NaN or infinite
+     * @throws  IOException                 if thrown by the {@link Appendable}
+     */
+    public static void appendDouble(Appendable a, double d) throws IOException {
+        formatDouble(d, a, null);
+    }
+
+    /**
+     * Output a {@code double} to an {@link IntConsumer}, using the shortest decimal representation that will parse
+     * back to the same value.  The output is the same as that of {@link Double#toString(double)} in Java 19 and later.
+     *
+     * @param   d           the value
+     * @param   consumer    the {@link IntConsumer}
+     * @throws  IllegalArgumentException    if the value is NaN or infinite
+     */
+    public static void outputDouble(double d, IntConsumer consumer) {
+        try {
+            formatDouble(d, null, consumer);
+        }
+        catch (IOException ignore) {
+            // can't happen - no Appendable
+        }
+    }
+
+    /**
+     * Append a {@code float} to an {@link Appendable}, using the shortest decimal representation that will parse back
+     * to the same value.  The output is the same as that of {@link Float#toString(float)} in Java 19 and later.
+     *
+     * @param   a           the {@link Appendable}
+     * @param   f           the value
+     * @throws  IllegalArgumentException    if the value is NaN or infinite
+     * @throws  IOException                 if thrown by the {@link Appendable}
+     */
+    public static void appendFloat(Appendable a, float f) throws IOException {
+        formatFloat(f, a, null);
+    }
+
+    /**
+     * Output a {@code float} to an {@link IntConsumer}, using the shortest decimal representation that will parse back
+     * to the same value.  The output is the same as that of {@link Float#toString(float)} in Java 19 and later.
+     *
+     * @param   f           the value
+     * @param   consumer    the {@link IntConsumer}
+     * @throws  IllegalArgumentException    if the value is NaN or infinite
+     */
+    public static void outputFloat(float f, IntConsumer consumer) {
+        try {
+            formatFloat(f, null, consumer);
+        }
+        catch (IOException ignore) {
+            // can't happen - no Appendable
+        }
+    }
+
+    /**
+     * Format a {@code double} to either an {@link Appendable} or an {@link IntConsumer} (whichever is not null).
+     *
+     * @param   d           the value
+     * @param   a           the {@link Appendable}, or {@code null}
+     * @param   consumer    the {@link IntConsumer}, or {@code null}
+     * @throws  IOException if thrown by the {@link Appendable}
+     */
+    private static void formatDouble(double d, Appendable a, IntConsumer consumer) throws IOException {
+        long bits = Double.doubleToRawLongBits(d);
+        int biasedExponent = (int)(bits >>> 52) & 0x7FF;
+        if (biasedExponent == 0x7FF)
+            throw new IllegalArgumentException(NOT_FINITE);
+        if (bits < 0)
+            put(a, consumer, '-');
+        long t = bits & ((1L << 52) - 1);
+        if (biasedExponent == 0 && t == 0) {
+            put(a, consumer, '0');
+            put(a, consumer, '.');
+            put(a, consumer, '0');
+            return;
+        }
+        if (biasedExponent != 0) {
+            int mq = -DOUBLE_Q_MIN + 1 - biasedExponent;
+            long c = DOUBLE_C_MIN | t;
+            if (mq > 0 && mq < DOUBLE_P) {
+                long f = c >> mq;
+                if (f << mq == c) {
+                    outputDecimal(f, 0, a, consumer);
+                    return;
+                }
+            }
+            decimalDouble(-mq, c, 0, a, consumer);
+        }
+        else if (t < DOUBLE_C_TINY)
+            decimalDouble(DOUBLE_Q_MIN, 10 * t, -1, a, consumer);
+        else
+            decimalDouble(DOUBLE_Q_MIN, t, 0, a, consumer);
+    }
+
+    /**
+     * Find the shortest decimal closest to {@code c * 2^q} (Schubfach) and output it.
+     *
+     * @param   q           the binary exponent
+     * @param   c           the binary significand
+     * @param   dk          the adjustment to the decimal exponent (for very small subnormal values)
+     * @param   a           the {@link Appendable}, or {@code null}
+     * @param   consumer    the {@link IntConsumer}, or {@code null}
+     * @throws  IOException if thrown by the {@link Appendable}
+     */
+    private static void decimalDouble(int q, long c, int dk, Appendable a, IntConsumer consumer) throws IOException {
+        int out = (int)c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != DOUBLE_C_MIN | q == DOUBLE_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        }
+        else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+        int index = (k - G_K_MIN) << 1;
+        long g1 = scaledPowersOfTen[index];
+        long g0 = scaledPowersOfTen[index + 1];
+        long vb = roundOdd(g1, g0, cb << h);
+        long vbl = roundOdd(g1, g0, cbl << h);
+        long vbr = roundOdd(g1, g0, cbr << h);
+        long s = vb >> 2;
+        if (s >= 100) {
+            long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                outputDecimal(upin ? sp10 : tp10, k, a, consumer);
+                return;
+            }
+        }
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win)
+            outputDecimal(uin ? s : t, k + dk, a, consumer);
+        else {
+            long cmp = vb - (s + t << 1);
+            outputDecimal(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, a, consumer);
+        }
+    }
+
+    /**
+     * Compute the product of a 126-bit scaled power of ten and a value, rounded to odd.
+     *
+     * @param   g1          the high 63 bits of the power of ten
+     * @param   g0          the low 63 bits of the power of ten
+     * @param   cp          the value
+     * @return              the rounded product
+     */
+    private static long roundOdd(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    /**
+     * Format a {@code float} to either an {@link Appendable} or an {@link IntConsumer} (whichever is not null).
+     *
+     * @param   f           the value
+     * @param   a           the {@link Appendable}, or {@code null}
+     * @param   consumer    the {@link IntConsumer}, or {@code null}
+     * @throws  IOException if thrown by the {@link Appendable}
+     */
+    private static void formatFloat(float f, Appendable a, IntConsumer consumer) throws IOException {
+        int bits = Float.floatToRawIntBits(f);
+        int biasedExponent = (bits >>> 23) & 0xFF;
+        if (biasedExponent == 0xFF)
+            throw new IllegalArgumentException(NOT_FINITE);
+        if (bits < 0)
+            put(a, consumer, '-');
+        int t = bits & ((1 << 23) - 1);
+        if (biasedExponent == 0 && t == 0) {
+            put(a, consumer, '0');
+            put(a, consumer, '.');
+            put(a, consumer, '0');
+            return;
+        }
+        if (biasedExponent != 0) {
+            int mq = -FLOAT_Q_MIN + 1 - biasedExponent;
+            int c = FLOAT_C_MIN | t;
+            if (mq > 0 && mq < FLOAT_P) {
+                int fi = c >> mq;
+                if (fi << mq == c) {
+                    outputDecimal(fi, 0, a, consumer);
+                    return;
+                }
+            }
+            decimalFloat(-mq, c, 0, a, consumer);
+        }
+        else if (t < FLOAT_C_TINY)
+            decimalFloat(FLOAT_Q_MIN, 10 * t, -1, a, consumer);
+        else
+            decimalFloat(FLOAT_Q_MIN, t, 0, a, consumer);
+    }
+
+    /**
+     * Find the shortest decimal closest to {@code c * 2^q} (Schubfach, {@code float} precision) and output it.
+     *
+     * @param   q           the binary exponent
+     * @param   c           the binary significand
+     * @param   dk          the adjustment to the decimal exponent (for very small subnormal values)
+     * @param   a           the {@link Appendable}, or {@code null}
+     * @param   consumer    the {@link IntConsumer}, or {@code null}
+     * @throws  IOException if thrown by the {@link Appendable}
+     */
+    private static void decimalFloat(int q, int c, int dk, Appendable a, IntConsumer consumer) throws IOException {
+        int out = c & 1;
+        long cb = (long)c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != FLOAT_C_MIN | q == FLOAT_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        }
+        else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 33;
+        long g = scaledPowersOfTen[(k - G_K_MIN) << 1] + 1;
+        int vb = roundOdd(g, cb << h);
+        int vbl = roundOdd(g, cbl << h);
+        int vbr = roundOdd(g, cbr << h);
+        int s = vb >> 2;
+        if (s >= 100) {
+            int sp10 = 10 * (int)(s * 1_717_986_919L >>> 34);
+            int tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                outputDecimal(upin ? sp10 : tp10, k, a, consumer);
+                return;
+            }
+        }
+        int t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win)
+            outputDecimal(uin ? s : t, k + dk, a, consumer);
+        else {
+            int cmp = vb - (s + t << 1);
+            outputDecimal(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, a, consumer);
+        }
+    }
+
+    /**
+     * Compute the product of a 63-bit scaled power of ten and a value, rounded to odd.
+     *
+     * @param   g           the power of ten
+     * @param   cp          the value
+     * @return              the rounded product
+     */
+    private static int roundOdd(long g, long cp) {
+        long p = multiplyHigh(g, cp);
+        return (int)(p >>> 31 | (p & MASK_32) + MASK_32 >>> 32);
+    }
+
+    /**
+     * Output a decimal value {@code f * 10^e} in the form used by {@link Double#toString(double)}: plain notation for
+     * values from 10<sup>-3</sup> (inclusive) to 10<sup>7</sup> (exclusive), and computerised scientific notation
+     * otherwise, in both cases with at least one digit after the decimal point.
+     *
+     * @param   f           the decimal significand (non-zero)
+     * @param   e           the decimal exponent
+     * @param   a           the {@link Appendable}, or {@code null}
+     * @param   consumer    the {@link IntConsumer}, or {@code null}
+     * @throws  IOException if thrown by the {@link Appendable}
+     */
+    private static void outputDecimal(long f, int e, Appendable a, IntConsumer consumer) throws IOException {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int length = 1;
+        while (length < longPowersOfTen.length && f >= longPowersOfTen[length])
+            length++;
+        long divisor = longPowersOfTen[length - 1];
+        int point = e + length;
+        if (point > 0 && point <= 7) {
+            for (int i = 0; i < length; i++) {
+                if (i == point)
+                    put(a, consumer, '.');
+                long digit = f / divisor;
+                put(a, consumer, (char)('0' + digit));
+                f -= digit * divisor;
+                divisor /= 10;
+            }
+            if (length <= point) {
+                for (int i = length; i < point; i++)
+                    put(a, consumer, '0');
+                put(a, consumer, '.');
+                put(a, consumer, '0');
+            }
+        }
+        else if (point > -3 && point <= 0) {
+            put(a, consumer, '0');
+            put(a, consumer, '.');
+            for (int i = point; i < 0; i++)
+                put(a, consumer, '0');
+            while (divisor > 0) {
+                long digit = f / divisor;
+                put(a, consumer, (char)('0' + digit));
+                f -= digit * divisor;
+                divisor /= 10;
+            }
+        }
+        else {
+            long digit = f / divisor;
+            put(a, consumer, (char)('0' + digit));
+            put(a, consumer, '.');
+            if (length == 1)
+                put(a, consumer, '0');
+            else {
+                f -= digit * divisor;
+                divisor /= 10;
+                while (divisor > 0) {
+                    digit = f / divisor;
+                    put(a, consumer, (char)('0' + digit));
+                    f -= digit * divisor;
+                    divisor /= 10;
+                }
+            }
+            put(a, consumer, 'E');
+            int exponent = point - 1;
+            if (exponent < 0) {
+                put(a, consumer, '-');
+                exponent = -exponent;
+            }
+            if (exponent >= 100) {
+                put(a, consumer, (char)('0' + exponent / 100));
+                exponent %= 100;
+                put(a, consumer, (char)('0' + exponent / 10));
+            }
+            else if (exponent >= 10)
+                put(a, consumer, (char)('0' + exponent / 10));
+            put(a, consumer, (char)('0' + exponent % 10));
+        }
+    }
+
+    /**
+     * Output a character to either an {@link Appendable} or an {@link IntConsumer} (whichever is not null).
+     *
+     * @param   a           the {@link Appendable}, or {@code null}
+     * @param   consumer    the {@link IntConsumer}, or {@code null}
+     * @param   ch          the character
+     * @throws  IOException if thrown by the {@link Appendable}
+     */
+    private static void put(Appendable a, IntConsumer consumer, char ch) throws IOException {
+        if (a != null)
+            a.append(ch);
+        else
+            consumer.accept(ch);
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static int flog10pow2(int e) {
+        return (int)(e * 661_971_961_083L >> 41);
+    }
+
+    private static int flog10threeQuartersPow2(int e) {
+        return (int)(e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    private static int flog2pow10(int e) {
+        return (int)(e * 913_124_641_741L >> 38);
+    }
+
+    /**
+     * Compute the high 64 bits of the signed 128-bit product of two {@code long} values (equivalent to
+     * {@code Math.multiplyHigh()}, which is not available in Java 8).
+     *
+     * @param   x           the first value
+     * @param   y           the second value
+     * @return              the high 64 bits of the product
+     */
+    private static long multiplyHigh(long x, long y) {
+        long x1 = x >> 32;
+        long x2 = x & MASK_32;
+        long y1 = y >> 32;
+        long y2 = y & MASK_32;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> 32);
+        long z1 = (t & MASK_32) + x2 * y1;
+        long z0 = t >> 32;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+
+    /**
+     * Compute the high 64 bits of the unsigned 128-bit product of two {@code long} values.
+     *
+     * @param   x           the first value
+     * @param   y           the second value
+     * @return              the high 64 bits of the product
+     */
+    private static long unsignedMultiplyHigh(long x, long y) {
+        return multiplyHigh(x, y) + (y & (x >> 63)) + (x & (y >> 63));
+    }
+
+    /**
+     * Create the table of 128-bit approximations of powers of five used by the Eisel-Lemire algorithm.  Negative powers
+     * are rounded up; the table holds the high and low 64 bits of each entry in consecutive elements.
+     *
+     * @return              the table
+     */
+    private static long[] createPowersOfFive() {
+        long[] table = new long[(FIVE_Q_MAX - FIVE_Q_MIN + 1) << 1];
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        for (int q = FIVE_Q_MIN; q <= FIVE_Q_MAX; q++) {
+            BigInteger c;
+            if (q < 0) {
+                BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+                int z = power5.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                while (c.compareTo(two128) >= 0)
+                    c = c.shiftRight(1);
+            }
+            else {
+                c = BigInteger.valueOf(5).pow(q);
+                int bitLength = c.bitLength();
+                c = bitLength <= 128 ? c.shiftLeft(128 - bitLength) : c.shiftRight(bitLength - 128);
+            }
+            int index = (q - FIVE_Q_MIN) << 1;
+            table[index] = c.shiftRight(64).longValue();
+            table[index + 1] = c.longValue();
+        }
+        return table;
+    }
+
+    /**
+     * Create the table of scaled powers of ten used by the Schubfach algorithm: for each {@code k}, the value
+     * {@code floor(10^-k * 2^-r) + 1}, where {@code r} is chosen to place the result in {@code [2^125, 2^126)}.  The
+     * table holds the high and low 63 bits of each entry in consecutive elements.
+     *
+     * @return              the table
+     */
+    private static long[] createScaledPowersOfTen() {
+        long[] table = new long[(G_K_MAX - G_K_MIN + 1) << 1];
+        BigInteger ten = BigInteger.TEN;
+        for (int k = G_K_MIN; k <= G_K_MAX; k++) {
+            int r = flog2pow10(-k) - 125;
+            BigInteger g;
+            if (k <= 0) {
+                BigInteger power = ten.pow(-k);
+                g = r >= 0 ? power.shiftRight(r) : power.shiftLeft(-r);
+            }
+            else
+                g = BigInteger.ONE.shiftLeft(-r).divide(ten.pow(k));
+            g = g.add(BigInteger.ONE);
+            int index = (k - G_K_MIN) << 1;
+            table[index] = g.shiftRight(63).longValue();
+            table[index + 1] = g.longValue() & MASK_63;
+        }
+        return table;
+    }
+
+}
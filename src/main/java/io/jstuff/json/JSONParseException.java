@@ -0,0 +1,119 @@
+/*
+ * @(#) JSONParseException.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+/**
+ * An exception thrown by the JSON string parsing functions.  It extends {@link IllegalArgumentException} (the exception
+ * thrown by earlier versions of the functions), and the message is unchanged; in addition, the exception carries an
+ * error code (one of the {@code ERROR_} constants in {@link JSONFunctions}) and the offset in the input at which the
+ * error was detected.
+ *
+ * <p>To minimise the cost of rejecting invalid input, the exception does not capture a stack trace.</p>
+ *
+ * @author  Peter Wall
+ */
+public class JSONParseException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int errorCode;
+    private final int offset;
+
+    /**
+     * Construct a {@code JSONParseException}.
+     *
+     * @param   errorCode   the error code
+     * @param   offset      the offset in the input at which the error was detected
+     */
+    public JSONParseException(int errorCode, int offset) {
+        super(getMessage(errorCode));
+        this.errorCode = errorCode;
+        this.offset = offset;
+    }
+
+    /**
+     * Get the error code (one of the {@code ERROR_} constants in {@link JSONFunctions}).
+     *
+     * @return              the error code
+     */
+    public int getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * Get the offset in the input at which the error was detected.  For functions parsing from a
+     * {@link io.jstuff.text.TextMatcher}, this is the index of the offending character (or the end of the text, in the
+     * case of an unterminated string); for functions parsing from a {@link java.nio.ByteBuffer}, it is the index of the
+     * offending byte, following the same rules; and for {@link JSONStringDecoder}, it is the index in the current
+     * chunk (or -1 if the error is detected by {@link JSONStringDecoder#getResult()}).
+     *
+     * @return              the offset
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Suppress the capture of the stack trace.
+     *
+     * @return              this exception
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+    /**
+     * Get the message corresponding to an error code.
+     *
+     * @param   errorCode   the error code
+     * @return              the message
+     */
+    public static String getMessage(int errorCode) {
+        switch (errorCode) {
+        case JSONFunctions.ERROR_UNTERMINATED_STRING:
+            return JSONFunctions.UNTERMINATED_STRING;
+        case JSONFunctions.ERROR_ILLEGAL_CHAR:
+            return JSONFunctions.ILLEGAL_CHAR;
+        case JSONFunctions.ERROR_ILLEGAL_UNICODE_SEQUENCE:
+            return JSONFunctions.ILLEGAL_UNICODE_SEQUENCE;
+        case JSONFunctions.ERROR_ILLEGAL_ESCAPE_SEQUENCE:
+            return JSONFunctions.ILLEGAL_ESCAPE_SEQUENCE;
+        case JSONFunctions.ERROR_ILLEGAL_UTF8_SEQUENCE:
+            return JSONFunctions.ILLEGAL_UTF8_SEQUENCE;
+        case JSONFunctions.ERROR_ILLEGAL_NUMBER:
+            return JSONFunctions.ILLEGAL_NUMBER;
+        case JSONFunctions.ERROR_NUMBER_NOT_INTEGER:
+            return JSONFunctions.NUMBER_NOT_INTEGER;
+        case JSONFunctions.ERROR_NUMBER_OUT_OF_RANGE:
+            return JSONFunctions.NUMBER_OUT_OF_RANGE;
+        case JSONFunctions.ERROR_LONE_SURROGATE:
+            return JSONFunctions.LONE_SURROGATE;
+        }
+        return "JSON parse error " + errorCode;
+    }
+
+}
@@ -0,0 +1,364 @@
+/*
+ * @(#) JSONScanner.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Functions to scan JSON text for the next character of interest, skipping runs of characters that need no further
+ * processing.  The scanning functions for UTF-8 bytes use SWAR ("SIMD within a register") techniques to examine eight
+ * bytes at a time; the functions for characters use a tight loop with a table lookup, avoiding the per-character
+ * overhead of a {@link io.jstuff.text.TextMatcher}.
+ *
+ * @author  Peter Wall
+ */
+public class JSONScanner {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long QUOTES = '"' * ONES;
+    private static final long BACKSLASHES = '\\' * ONES;
+    private static final long CONTROL_THRESHOLD = (0x80 - 0x20) * ONES;
+    private static final long SPACES = ' ' * ONES;
+    private static final long NEWLINES = '\n' * ONES;
+    private static final long TABS = '\t' * ONES;
+    private static final long RETURNS = '\r' * ONES;
+    private static final long OPEN_BRACES = '{' * ONES;
+    private static final long CLOSE_BRACES = '}' * ONES;
+    private static final long OPEN_BRACKETS = '[' * ONES;
+    private static final long CLOSE_BRACKETS = ']' * ONES;
+    private static final long COLONS = ':' * ONES;
+    private static final long COMMAS = ',' * ONES;
+
+    private static final boolean[] stringSpecial = new boolean['\\' + 1];
+    private static final boolean[] spaceCharacters = new boolean[' ' + 1];
+    private static final boolean[] structuralCharacters = new boolean['}' + 1];
+
+    static {
+        for (int i = 0; i < 0x20; i++)
+            stringSpecial[i] = true;
+        stringSpecial['"'] = true;
+        stringSpecial['\\'] = true;
+        spaceCharacters[' '] = true;
+        spaceCharacters['\n'] = true;
+        spaceCharacters['\t'] = true;
+        spaceCharacters['\r'] = true;
+        structuralCharacters['{'] = true;
+        structuralCharacters['}'] = true;
+        structuralCharacters['['] = true;
+        structuralCharacters[']'] = true;
+        structuralCharacters[':'] = true;
+        structuralCharacters[','] = true;
+        structuralCharacters['"'] = true;
+    }
+
+    /**
+     * Scan the content of a JSON string for the next character that terminates a run of plain characters, that is, a
+     * double quote, a backslash or a control character.
+     *
+     * @param   text        the text
+     * @param   index       the start index
+     * @param   end         the end index
+     * @return              the index of the first such character, or {@code end} if none is found
+     */
+    public static int scanString(String text, int index, int end) {
+        while (index < end) {
+            char ch = text.charAt(index);
+            if (ch <= '\\' && stringSpecial[ch])
+                return index;
+            index++;
+        }
+        return end;
+    }
+
+    /**
+     * Scan the content of a JSON string for the next double quote, backslash or control character, where the text is
+     * in a {@link CharSequence} other than a {@link String} (for example, a {@link java.nio.CharBuffer}).
+     *
+     * @param   cs          the {@link CharSequence}
+     * @param   index       the start index
+     * @param   end         the end index
+     * @return              the index of the first such character, or {@code end} if none is found
+     */
+    public static int scanString(CharSequence cs, int index, int end) {
+        if (cs instanceof String)
+            return scanString((String)cs, index, end);
+        while (index < end) {
+            char ch = cs.charAt(index);
+            if (ch <= '\\' && stringSpecial[ch])
+                return index;
+            index++;
+        }
+        return end;
+    }
+
+    /**
+     * Scan the content of a JSON string in UTF-8 for the next byte that terminates a run of plain ASCII characters,
+     * that is, a double quote, a backslash, a control character or a byte with the high bit set (the start of a
+     * multi-byte sequence).  The bytes are examined eight at a time.
+     *
+     * @param   buffer      the {@link ByteBuffer}
+     * @param   index       the start index
+     * @param   limit       the end index
+     * @return              the index of the first such byte, or {@code limit} if none is found
+     */
+    public static int scanString(ByteBuffer buffer, int index, int limit) {
+        if (limit - index >= 8) {
+            boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+            do {
+                long mask = stringMask(buffer.getLong(index));
+                if (mask != 0)
+                    return index + ((bigEndian ? Long.numberOfLeadingZeros(mask) :
+                            Long.numberOfTrailingZeros(mask)) >> 3);
+                index += 8;
+            } while (limit - index >= 8);
+        }
+        while (index < limit) {
+            int b = buffer.get(index);
+            if (b < 0x20 || b == '"' || b == '\\')
+                return index;
+            index++;
+        }
+        return limit;
+    }
+
+    /**
+     * Scan a {@link CharSequence} for the next character that is to be escaped according to a
+     * {@link JSONEscapePolicy} (or, if the policy checks for lone surrogates, the next surrogate).
+     *
+     * @param   cs          the {@link CharSequence}
+     * @param   index       the start index
+     * @param   end         the end index
+     * @param   policy      the {@link JSONEscapePolicy}
+     * @return              the index of the first such character, or {@code end} if none is found
+     */
+    public static int scanUnescaped(CharSequence cs, int index, int end, JSONEscapePolicy policy) {
+        if (cs instanceof String) {
+            String str = (String)cs;
+            while (index < end) {
+                if (policy.needsProcessing(str.charAt(index)))
+                    return index;
+                index++;
+            }
+        }
+        else {
+            while (index < end) {
+                if (policy.needsProcessing(cs.charAt(index)))
+                    return index;
+                index++;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Scan JSON text for the next character that is not whitespace (as defined by the JSON specification: space, tab,
+     * newline or carriage return).
+     *
+     * @param   text        the text
+     * @param   index       the start index
+     * @param   end         the end index
+     * @return              the index of the first non-space character, or {@code end} if none is found
+     */
+    public static int scanSpaces(String text, int index, int end) {
+        while (index < end) {
+            char ch = text.charAt(index);
+            if (ch > ' ' || !spaceCharacters[ch])
+                return index;
+            index++;
+        }
+        return end;
+    }
+
+    /**
+     * Scan JSON text in a {@link CharSequence} other than a {@link String} for the next character that is not
+     * whitespace.
+     *
+     * @param   cs          the {@link CharSequence}
+     * @param   index       the start index
+     * @param   end         the end index
+     * @return              the index of the first non-space character, or {@code end} if none is found
+     */
+    public static int scanSpaces(CharSequence cs, int index, int end) {
+        if (cs instanceof String)
+            return scanSpaces((String)cs, index, end);
+        while (index < end) {
+            char ch = cs.charAt(index);
+            if (ch > ' ' || !spaceCharacters[ch])
+                return index;
+            index++;
+        }
+        return end;
+    }
+
+    /**
+     * Scan JSON text in UTF-8 for the next byte that is not whitespace.  The bytes are examined eight at a time.
+     *
+     * @param   buffer      the {@link ByteBuffer}
+     * @param   index       the start index
+     * @param   limit       the end index
+     * @return              the index of the first non-space byte, or {@code limit} if none is found
+     */
+    public static int scanSpaces(ByteBuffer buffer, int index, int limit) {
+        if (limit - index >= 8) {
+            boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+            do {
+                long mask = nonSpaceMask(buffer.getLong(index));
+                if (mask != 0)
+                    return index + ((bigEndian ? Long.numberOfLeadingZeros(mask) :
+                            Long.numberOfTrailingZeros(mask)) >> 3);
+                index += 8;
+            } while (limit - index >= 8);
+        }
+        while (index < limit) {
+            int b = buffer.get(index);
+            if (b != ' ' && b != '\n' && b != '\t' && b != '\r')
+                return index;
+            index++;
+        }
+        return limit;
+    }
+
+    /**
+     * Scan JSON text (outside a string) for the next structural character, that is, one of {@code { } [ ] : ,} or the
+     * double quote that opens a string.
+     *
+     * @param   text        the text
+     * @param   index       the start index
+     * @param   end         the end index
+     * @return              the index of the first structural character, or {@code end} if none is found
+     */
+    public static int scanStructural(String text, int index, int end) {
+        while (index < end) {
+            char ch = text.charAt(index);
+            if (ch <= '}' && structuralCharacters[ch])
+                return index;
+            index++;
+        }
+        return end;
+    }
+
+    /**
+     * Scan JSON text in a {@link CharSequence} other than a {@link String} (outside a string) for the next structural
+     * character.
+     *
+     * @param   cs          the {@link CharSequence}
+     * @param   index       the start index
+     * @param   end         the end index
+     * @return              the index of the first structural character, or {@code end} if none is found
+     */
+    public static int scanStructural(CharSequence cs, int index, int end) {
+        if (cs instanceof String)
+            return scanStructural((String)cs, index, end);
+        while (index < end) {
+            char ch = cs.charAt(index);
+            if (ch <= '}' && structuralCharacters[ch])
+                return index;
+            index++;
+        }
+        return end;
+    }
+
+    /**
+     * Scan JSON text in UTF-8 (outside a string) for the next structural character.  The bytes are examined eight at
+     * a time.
+     *
+     * @param   buffer      the {@link ByteBuffer}
+     * @param   index       the start index
+     * @param   limit       the end index
+     * @return              the index of the first structural character, or {@code limit} if none is found
+     */
+    public static int scanStructural(ByteBuffer buffer, int index, int limit) {
+        if (limit - index >= 8) {
+            boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+            do {
+                long mask = structuralMask(buffer.getLong(index));
+                if (mask != 0)
+                    return index + ((bigEndian ? Long.numberOfLeadingZeros(mask) :
+                            Long.numberOfTrailingZeros(mask)) >> 3);
+                index += 8;
+            } while (limit - index >= 8);
+        }
+        while (index < limit) {
+            int b = buffer.get(index);
+            if (b >= 0 && b <= '}' && structuralCharacters[b])
+                return index;
+            index++;
+        }
+        return limit;
+    }
+
+    /**
+     * Compute a mask with the high bit set in each byte of a word that is not a JSON whitespace character.
+     *
+     * @param   word        the word
+     * @return              the mask
+     */
+    private static long nonSpaceMask(long word) {
+        return ~(zeroBytes(word ^ SPACES) | zeroBytes(word ^ NEWLINES) | zeroBytes(word ^ TABS) |
+                zeroBytes(word ^ RETURNS)) & HIGH_BITS;
+    }
+
+    /**
+     * Compute a mask with the high bit set in each byte of a word that is a JSON structural character or a double
+     * quote.
+     *
+     * @param   word        the word
+     * @return              the mask
+     */
+    private static long structuralMask(long word) {
+        return zeroBytes(word ^ OPEN_BRACES) | zeroBytes(word ^ CLOSE_BRACES) | zeroBytes(word ^ OPEN_BRACKETS) |
+                zeroBytes(word ^ CLOSE_BRACKETS) | zeroBytes(word ^ COLONS) | zeroBytes(word ^ COMMAS) |
+                zeroBytes(word ^ QUOTES);
+    }
+
+    /**
+     * Compute a mask with the high bit set in each byte of a word that is a double quote, a backslash, a control
+     * character or a byte with the high bit set.  Each test is exact for each byte (there is no carry between bytes),
+     * so the mask may be used with either byte order.
+     *
+     * @param   word        the word
+     * @return              the mask
+     */
+    private static long stringMask(long word) {
+        long low = word & LOW_BITS;
+        long control = ~((low + CONTROL_THRESHOLD) | word);
+        return (control | zeroBytes(word ^ QUOTES) | zeroBytes(word ^ BACKSLASHES) | word) & HIGH_BITS;
+    }
+
+    /**
+     * Compute a mask with the high bit set in each zero byte of a word (and no other bits set).
+     *
+     * @param   word        the word
+     * @return              the mask
+     */
+    private static long zeroBytes(long word) {
+        return ~(((word & LOW_BITS) + LOW_BITS) | word) & HIGH_BITS;
+    }
+
+}
@@ -0,0 +1,257 @@
+/*
+ * @(#) JSONStringCache.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import java.util.function.IntFunction;
+
+/**
+ * A bounded cache used to canonicalise strings created by parsing, typically the property names in JSON objects.  When
+ * the same names occur repeatedly (as is usual when parsing large numbers of similar records), the cache allows the
+ * existing {@link String} to be returned instead of a new one being created each time.
+ *
+ * <p>The cache is a fixed-size table indexed by the hash code of the string (the hash code is computed as the
+ * characters are scanned, using the same algorithm as {@link String#hashCode()}).  When a new string maps to an
+ * occupied slot, the {@link Eviction} setting determines whether the new string replaces the existing entry.  Strings
+ * longer than the maximum length are not cached.</p>
+ *
+ * <p>This class is not thread-safe; see {@link ConcurrentJSONStringCache} for a form that may be shared between
+ * threads.</p>
+ *
+ * @author  Peter Wall
+ */
+public class JSONStringCache {
+
+    /**
+     * The eviction policy, controlling what happens when a new string maps to an occupied slot in the table.
+     */
+    public enum Eviction {
+        /** The new string replaces the existing entry (the cache adapts to a changing set of names). */
+        REPLACE,
+        /** The existing entry is retained (the cache is not disturbed by strings that occur only once). */
+        RETAIN
+    }
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_LENGTH = 64;
+
+    private final Entries entries;
+    private final int mask;
+    private final int maxLength;
+    private final Eviction eviction;
+
+    /**
+     * Construct a {@code JSONStringCache} with the specified capacity, maximum string length and eviction policy.
+     *
+     * @param   capacity        the number of entries (rounded up to a power of two)
+     * @param   maxLength       the maximum length of a string to be cached
+     * @param   eviction        the {@link Eviction} policy
+     * @throws  IllegalArgumentException  if the capacity or maximum length is not valid
+     */
+    public JSONStringCache(int capacity, int maxLength, Eviction eviction) {
+        this(capacity, maxLength, eviction, ArrayEntries::new);
+    }
+
+    /**
+     * Construct a {@code JSONStringCache} with the specified capacity, maximum string length and eviction policy, using
+     * the specified function to create the table of entries (for use by subclasses that use a different storage
+     * mechanism).
+     *
+     * @param   capacity        the number of entries (rounded up to a power of two)
+     * @param   maxLength       the maximum length of a string to be cached
+     * @param   eviction        the {@link Eviction} policy
+     * @param   entriesFactory  the function to create the table of entries, given the size
+     * @throws  IllegalArgumentException  if the capacity or maximum length is not valid
+     */
+    JSONStringCache(int capacity, int maxLength, Eviction eviction, IntFunction<Entries> entriesFactory) {
+        if (capacity <= 0 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Illegal cache capacity: " + capacity);
+        if (maxLength < 0)
+            throw new IllegalArgumentException("Illegal cache maximum length: " + maxLength);
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+        entries = entriesFactory.apply(size);
+        mask = size - 1;
+        this.maxLength = maxLength;
+        this.eviction = eviction;
+    }
+
+    /**
+     * Construct a {@code JSONStringCache} with the specified capacity, and the default maximum string length and
+     * eviction policy ({@link Eviction#REPLACE}).
+     *
+     * @param   capacity        the number of entries (rounded up to a power of two)
+     */
+    public JSONStringCache(int capacity) {
+        this(capacity, DEFAULT_MAX_LENGTH, Eviction.REPLACE);
+    }
+
+    /**
+     * Construct a {@code JSONStringCache} with the default capacity, maximum string length and eviction policy.
+     */
+    public JSONStringCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Get the canonical {@link String} for a range of characters in a {@link CharSequence}, creating it (and adding
+     * it to the cache) if it is not already present.
+     *
+     * @param   cs          the {@link CharSequence}
+     * @param   start       the start index
+     * @param   end         the end index
+     * @param   hash        the hash code of the characters, as would be returned by {@link String#hashCode()}
+     * @return              the {@link String}
+     */
+    public String get(CharSequence cs, int start, int end, int hash) {
+        if (end - start > maxLength)
+            return substring(cs, start, end);
+        int index = (hash ^ (hash >>> 16)) & mask;
+        String entry = entries.get(index);
+        if (entry != null && entry.hashCode() == hash && contentEquals(entry, cs, start, end))
+            return entry;
+        String str = substring(cs, start, end);
+        if (entry == null)
+            entries.add(index, str);
+        else if (eviction == Eviction.REPLACE)
+            entries.set(index, str);
+        return str;
+    }
+
+    /**
+     * Get the canonical {@link String} for the contents of a {@link CharSequence}, creating it (and adding it to the
+     * cache) if it is not already present.
+     *
+     * @param   cs          the {@link CharSequence}
+     * @return              the {@link String}
+     */
+    public String get(CharSequence cs) {
+        int end = cs.length();
+        if (end > maxLength)
+            return cs.toString();
+        int hash = 0;
+        for (int i = 0; i < end; i++)
+            hash = 31 * hash + cs.charAt(i);
+        return get(cs, 0, end, hash);
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public void clear() {
+        for (int i = 0; i <= mask; i++)
+            entries.set(i, null);
+    }
+
+    /**
+     * Get the capacity of the cache (the number of entries in the table).
+     *
+     * @return              the capacity
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Get the maximum length of a string to be cached.
+     *
+     * @return              the maximum length
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Get the eviction policy.
+     *
+     * @return              the {@link Eviction} policy
+     */
+    public Eviction getEviction() {
+        return eviction;
+    }
+
+    private static String substring(CharSequence cs, int start, int end) {
+        return cs instanceof String ? ((String)cs).substring(start, end) : cs.subSequence(start, end).toString();
+    }
+
+    private static boolean contentEquals(String str, CharSequence cs, int start, int end) {
+        int n = str.length();
+        if (n != end - start)
+            return false;
+        for (int i = 0; i < n; i++)
+            if (str.charAt(i) != cs.charAt(start + i))
+                return false;
+        return true;
+    }
+
+    /**
+     * The table of entries in a cache.
+     */
+    interface Entries {
+
+        String get(int index);
+
+        void set(int index, String str);
+
+        /**
+         * Store a string in an entry that was found to be empty.
+         *
+         * @param   index       the index of the entry
+         * @param   str         the string
+         */
+        void add(int index, String str);
+
+    }
+
+    /**
+     * A table of entries held in an array (for use by a single thread).
+     */
+    private static final class ArrayEntries implements Entries {
+
+        private final String[] array;
+
+        ArrayEntries(int size) {
+            array = new String[size];
+        }
+
+        @Override
+        public String get(int index) {
+            return array[index];
+        }
+
+        @Override
+        public void set(int index, String str) {
+            array[index] = str;
+        }
+
+        @Override
+        public void add(int index, String str) {
+            array[index] = str;
+        }
+
+    }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * @(#) JSONStringDecoder.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import io.jstuff.text.TextMatcher;
+
+/**
+ * An incremental decoder for JSON strings.  The content of the string (following the opening double quote) is supplied
+ * in one or more chunks, as it becomes available; the decoder retains its state between chunks, so a chunk boundary may
+ * occur at any point, including within an escape sequence.  Each chunk is scanned once, and the characters are copied
+ * directly to the result.
+ *
+ * <p>A typical use is:</p>
+ * <pre>
+ *     JSONStringDecoder decoder = new JSONStringDecoder();
+ *     int index;
+ *     while ((index = decoder.decode(chunk, start, end)) &lt; 0)
+ *         // get next chunk
+ *     String result = decoder.getResult();
+ * </pre>
+ *
+ * <p>Errors are reported using the same messages as {@link JSONFunctions#parseString(io.jstuff.text.TextMatcher)}.
+ * This class is not thread-safe, but an instance may be re-used (after calling {@link #reset()}) to decode further
+ * strings.</p>
+ *
+ * @author  Peter Wall
+ */
+public class JSONStringDecoder {
+
+    private static final int STATE_NORMAL = 0;
+    private static final int STATE_ESCAPE = 1;
+    private static final int STATE_UNICODE = 2;
+    private static final int STATE_COMPLETE = 3;
+
+    private final StringBuilder sb;
+    private int state;
+    private int hexCount;
+    private int hexValue;
+
+    /**
+     * Construct a {@code JSONStringDecoder}.
+     */
+    public JSONStringDecoder() {
+        this(new StringBuilder());
+    }
+
+    /**
+     * Construct a {@code JSONStringDecoder} that decodes into the supplied {@link StringBuilder} (the decoded
+     * characters are appended to any existing content).
+     *
+     * @param   sb          the {@link StringBuilder}
+     */
+    public JSONStringDecoder(StringBuilder sb) {
+        this.sb = sb;
+        state = STATE_NORMAL;
+    }
+
+    /**
+     * Decode a chunk of the JSON string.  The first chunk must start immediately after the opening double quote.
+     *
+     * @param   chunk       the chunk of input
+     * @return              the index following the closing double quote, or -1 if more input is needed
+     * @throws  IllegalArgumentException    if the input is not a valid JSON string
+     * @throws  IllegalStateException       if the string is already complete
+     */
+    public int decode(CharSequence chunk) {
+        return decode(chunk, 0, chunk.length());
+    }
+
+    /**
+     * Decode a portion of a chunk of the JSON string.  The first chunk must start immediately after the opening double
+     * quote.  Characters following the closing double quote are not examined; the return value gives the index at which
+     * the caller should continue processing the chunk.
+     *
+     * @param   chunk       the chunk of input
+     * @param   start       the start index
+     * @param   end         the end index
+     * @return              the index following the closing double quote, or -1 if more input is needed
+     * @throws  IllegalArgumentException    if the input is not a valid JSON string
+     * @throws  IllegalStateException       if the string is already complete
+     */
+    public int decode(CharSequence chunk, int start, int end) {
+        int i = start;
+        while (i < end) {
+            switch (state) {
+            case STATE_NORMAL:
+                int runStart = i;
+                i = JSONScanner.scanString(chunk, i, end);
+                sb.append(chunk, runStart, i);
+                if (i >= end)
+                    return -1;
+                char ch = chunk.charAt(i++);
+                if (ch == '"') {
+                    state = STATE_COMPLETE;
+                    return i;
+                }
+                if (ch != '\\')
+                    throw new JSONParseException(JSONFunctions.ERROR_ILLEGAL_CHAR, i - 1);
+                state = STATE_ESCAPE;
+                break;
+            case STATE_ESCAPE:
+                i = decodeEscape(chunk.charAt(i), i);
+                break;
+            case STATE_UNICODE:
+                char hex = chunk.charAt(i);
+                if (!TextMatcher.isHexDigit(hex))
+                    throw new JSONParseException(JSONFunctions.ERROR_ILLEGAL_UNICODE_SEQUENCE, i);
+                i++;
+                hexValue = (hexValue << 4) | Character.digit(hex, 16);
+                if (++hexCount == 4) {
+                    sb.append((char)hexValue);
+                    state = STATE_NORMAL;
+                }
+                break;
+            default:
+                throw new IllegalStateException("JSON string already complete");
+            }
+        }
+        if (state == STATE_COMPLETE)
+            throw new IllegalStateException("JSON string already complete");
+        return -1;
+    }
+
+    private int decodeEscape(char ch, int i) {
+        state = STATE_NORMAL;
+        switch (ch) {
+        case '"':
+        case '\\':
+        case '/':
+            sb.append(ch);
+            break;
+        case 'b':
+            sb.append('\b');
+            break;
+        case 'f':
+            sb.append('\f');
+            break;
+        case 'n':
+            sb.append('\n');
+            break;
+        case 'r':
+            sb.append('\r');
+            break;
+        case 't':
+            sb.append('\t');
+            break;
+        case 'u':
+            state = STATE_UNICODE;
+            hexCount = 0;
+            hexValue = 0;
+            break;
+        default:
+            throw new JSONParseException(JSONFunctions.ERROR_ILLEGAL_ESCAPE_SEQUENCE, i);
+        }
+        return i + 1;
+    }
+
+    /**
+     * Test whether the closing double quote has been found.
+     *
+     * @return              {@code true} if the string is complete
+     */
+    public boolean isComplete() {
+        return state == STATE_COMPLETE;
+    }
+
+    /**
+     * Get the decoded string.  This is normally called after {@link #decode(CharSequence, int, int)} has returned a
+     * non-negative value; if it is called before the closing double quote has been found, the input is taken to have
+     * ended prematurely.
+     *
+     * @return              the decoded string
+     * @throws  IllegalArgumentException    if the string is not complete
+     */
+    public String getResult() {
+        if (state != STATE_COMPLETE)
+            throw new JSONParseException(JSONFunctions.ERROR_UNTERMINATED_STRING, -1);
+        return sb.toString();
+    }
+
+    /**
+     * Get the {@link StringBuilder} holding the decoded characters (this may be used to access a partially-decoded
+     * string, or to avoid the creation of a {@link String}).
+     *
+     * @return              the {@link StringBuilder}
+     */
+    public StringBuilder getStringBuilder() {
+        return sb;
+    }
+
+    /**
+     * Reset the decoder, clearing the {@link StringBuilder}, to allow it to be used to decode another string.
+     */
+    public void reset() {
+        sb.setLength(0);
+        state = STATE_NORMAL;
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * @(#) JSONStringReader.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * A {@link Reader} that decodes a JSON string value from an underlying {@link Reader}, returning the decoded characters
+ * up to (but not including) the closing double quote.  This allows string values too large to be held in memory (for
+ * example, embedded documents or base64 attachments) to be processed in pieces.
+ *
+ * <p>The underlying {@link Reader} must be positioned after the opening double quote.  The input is read in blocks of a
+ * fixed size, and decoded using a {@link JSONStringDecoder}, so memory use does not depend on the length of the string.
+ * If the underlying {@link Reader} supports {@link Reader#mark(int) mark}, it is left positioned after the closing
+ * double quote when the end of the string is reached; otherwise, any characters following the closing double quote in
+ * the last block read are discarded.  Closing the {@code JSONStringReader} does <b>not</b> close the underlying
+ * {@link Reader}.</p>
+ *
+ * <p>Errors in the JSON are reported by throwing a {@link JSONParseException} (the offsets in which are relative to
+ * the start of the block being decoded).  This class is not thread-safe.</p>
+ *
+ * @author  Peter Wall
+ */
+public class JSONStringReader extends Reader {
+
+    public static final int DEFAULT_BLOCK_SIZE = 8192;
+
+    private final Reader in;
+    private final char[] block;
+    private final CharBuffer blockChars;
+    private final JSONStringDecoder decoder;
+    private final StringBuilder decoded;
+    private int index;
+    private boolean closed;
+
+    /**
+     * Construct a {@code JSONStringReader} with the specified block size.
+     *
+     * @param   in          the underlying {@link Reader}
+     * @param   blockSize   the number of characters to read from the underlying {@link Reader} at a time
+     * @throws  IllegalArgumentException  if the block size is less than 1
+     */
+    public JSONStringReader(Reader in, int blockSize) {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("Illegal block size: " + blockSize);
+        this.in = in;
+        block = new char[blockSize];
+        blockChars = CharBuffer.wrap(block);
+        decoded = new StringBuilder(blockSize);
+        decoder = new JSONStringDecoder(decoded);
+        index = 0;
+        closed = false;
+    }
+
+    /**
+     * Construct a {@code JSONStringReader} with the default block size.
+     *
+     * @param   in          the underlying {@link Reader}
+     */
+    public JSONStringReader(Reader in) {
+        this(in, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Read decoded characters into a portion of an array.
+     *
+     * @param   cbuf        the array
+     * @param   off         the offset at which to store the characters
+     * @param   len         the maximum number of characters to read
+     * @return              the number of characters read, or -1 if the end of the string has been reached
+     * @throws  IOException if thrown by the underlying {@link Reader}, or if the {@code JSONStringReader} is closed
+     * @throws  IllegalArgumentException  if there are any errors in the JSON, or the underlying {@link Reader} reaches
+     *                                    end of file before the closing double quote
+     */
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > cbuf.length || off + len < 0)
+            throw new IndexOutOfBoundsException("off " + off + ", len " + len + ", length " + cbuf.length);
+        checkOpen();
+        if (len == 0)
+            return 0;
+        while (index == decoded.length()) {
+            if (decoder.isComplete())
+                return -1;
+            decoded.setLength(0);
+            index = 0;
+            readBlock();
+        }
+        int n = Math.min(len, decoded.length() - index);
+        decoded.getChars(index, index + n, cbuf, off);
+        index += n;
+        return n;
+    }
+
+    /**
+     * Tell whether decoded characters are available without reading from the underlying {@link Reader}.
+     *
+     * @return              {@code true} if decoded characters are available
+     * @throws  IOException if the {@code JSONStringReader} is closed
+     */
+    @Override
+    public boolean ready() throws IOException {
+        checkOpen();
+        return index < decoded.length();
+    }
+
+    /**
+     * Test whether the closing double quote has been found.
+     *
+     * @return              {@code true} if the string is complete
+     */
+    public boolean isComplete() {
+        return decoder.isComplete();
+    }
+
+    /**
+     * Close the {@code JSONStringReader}.  The underlying {@link Reader} is not closed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Read a block from the underlying {@link Reader} and decode it.  If the closing double quote is found and the
+     * underlying {@link Reader} supports {@link Reader#mark(int) mark}, it is repositioned after the double quote.
+     *
+     * @throws  IOException if thrown by the underlying {@link Reader}
+     */
+    private void readBlock() throws IOException {
+        boolean markSupported = in.markSupported();
+        if (markSupported)
+            in.mark(block.length);
+        int n = in.read(block, 0, block.length);
+        if (n < 0)
+            throw new JSONParseException(JSONFunctions.ERROR_UNTERMINATED_STRING, -1);
+        int end = decoder.decode(blockChars, 0, n);
+        if (end >= 0 && end < n && markSupported) {
+            in.reset();
+            long remaining = end;
+            while (remaining > 0) {
+                long skipped = in.skip(remaining);
+                if (skipped <= 0)
+                    break;
+                remaining -= skipped;
+            }
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed)
+            throw new IOException("JSONStringReader closed");
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * @(#) JSONStringView.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import java.io.IOException;
+
+/**
+ * A {@link CharSequence} view of a JSON string in the source text, as returned by
+ * {@link JSONFunctions#parseStringView(io.jstuff.text.TextMatcher)}.  Where the JSON string contains no escape
+ * sequences, the characters are accessed directly from the source text; otherwise the string is decoded the first time
+ * its content is accessed.  A {@link String} is created only when {@link #toString()} is called.
+ *
+ * <p>The original JSON form of the string may be output unchanged using {@link #appendJSON(Appendable)}.</p>
+ *
+ * @author  Peter Wall
+ */
+public final class JSONStringView implements CharSequence {
+
+    private final String text;
+    private final int start;
+    private final int end;
+    private final int length;
+    private String decoded;
+    private int hash;
+
+    /**
+     * Construct a {@code JSONStringView}.
+     *
+     * @param   text        the source text
+     * @param   start       the index of the first character following the opening double quote
+     * @param   end         the index of the closing double quote
+     * @param   length      the decoded length
+     */
+    JSONStringView(String text, int start, int end, int length) {
+        this.text = text;
+        this.start = start;
+        this.end = end;
+        this.length = length;
+    }
+
+    /**
+     * Get the length of the decoded string.
+     *
+     * @return              the length
+     */
+    @Override
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Get a character from the decoded string.
+     *
+     * @param   index       the index
+     * @return              the character
+     * @throws  IndexOutOfBoundsException  if the index is out of range
+     */
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        return hasEscapes() ? decode().charAt(index) : text.charAt(start + index);
+    }
+
+    /**
+     * Get a subsequence of the decoded string.
+     *
+     * @param   start       the start index
+     * @param   end         the end index
+     * @return              the subsequence
+     * @throws  IndexOutOfBoundsException  if either index is out of range
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end)
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        return hasEscapes() ? decode().substring(start, end) : text.subSequence(this.start + start, this.start + end);
+    }
+
+    /**
+     * Test whether the JSON string contained escape sequences.
+     *
+     * @return              {@code true} if the JSON string contained escape sequences
+     */
+    public boolean hasEscapes() {
+        return length != end - start;
+    }
+
+    /**
+     * Compare the decoded string with another {@link CharSequence}.
+     *
+     * @param   cs          the other {@link CharSequence}
+     * @return              {@code true} if the contents are equal
+     */
+    public boolean contentEquals(CharSequence cs) {
+        if (cs.length() != length)
+            return false;
+        if (hasEscapes())
+            return decode().contentEquals(cs);
+        for (int i = 0; i < length; i++)
+            if (text.charAt(start + i) != cs.charAt(i))
+                return false;
+        return true;
+    }
+
+    /**
+     * Append the string in its original JSON form (including the enclosing double quotes) to an {@link Appendable},
+     * without decoding and re-encoding it.
+     *
+     * @param   a           the {@link Appendable}
+     * @throws  IOException if thrown by the {@link Appendable}
+     */
+    public void appendJSON(Appendable a) throws IOException {
+        a.append('"');
+        a.append(text, start, end);
+        a.append('"');
+    }
+
+    /**
+     * Compare this {@code JSONStringView} with another object for equality.  Two {@code JSONStringView}s are equal if
+     * their decoded contents are equal.
+     *
+     * @param   other       the other object
+     * @return              {@code true} if the other object is a {@code JSONStringView} with the same content
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof JSONStringView))
+            return false;
+        JSONStringView view = (JSONStringView)other;
+        return length == view.length && hashCode() == view.hashCode() && contentEquals(view);
+    }
+
+    /**
+     * Get the hash code for this {@code JSONStringView}; this is the same as the hash code of the equivalent
+     * {@link String}.
+     *
+     * @return              the hash code
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && length > 0) {
+            if (hasEscapes())
+                h = decode().hashCode();
+            else {
+                for (int i = start; i < end; i++)
+                    h = 31 * h + text.charAt(i);
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Get the decoded string as a {@link String}.
+     *
+     * @return              the decoded string
+     */
+    @Override
+    public String toString() {
+        return hasEscapes() ? decode() : text.substring(start, end);
+    }
+
+    private String decode() {
+        String result = decoded;
+        if (result == null) {
+            StringBuilder sb = new StringBuilder(length);
+            int i = start;
+            while (i < end) {
+                char ch = text.charAt(i);
+                if (ch == '\\') {
+                    sb.append((char)JSONFunctions.decodeEscape(text, i, end));
+                    i += JSONFunctions.escapeLength(text, i);
+                }
+                else {
+                    sb.append(ch);
+                    i++;
+                }
+            }
+            result = sb.toString();
+            decoded = result;
+        }
+        return result;
+    }
+
+}
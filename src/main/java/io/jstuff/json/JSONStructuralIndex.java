@@ -0,0 +1,175 @@
+/*
+ * @(#) JSONStructuralIndex.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static io.jstuff.json.JSONFunctions.ERROR_UNTERMINATED_STRING;
+
+/**
+ * An index of the structural characters in a JSON text: the positions of every {@code { } [ ] : ,} outside a string,
+ * and of the opening double quote of every string, recorded in a single pass over the text.  A parser may use the
+ * index to move from token to token without re-scanning the characters between them; scalar values (numbers,
+ * {@code true}, {@code false} and {@code null}) occupy the text between structural positions, surrounded by
+ * optional whitespace.
+ * <p>
+ * Building the index does not validate the JSON, beyond checking that each string is terminated; the content of
+ * strings is skipped (respecting backslash escapes) so that characters within strings are not indexed.
+ *
+ * @author  Peter Wall
+ */
+public class JSONStructuralIndex {
+
+    private int[] positions;
+    private int count;
+
+    /**
+     * Create a {@code JSONStructuralIndex} for the whole of a {@link CharSequence}.
+     *
+     * @param   text        the JSON text
+     * @throws  JSONParseException  if a string is not terminated
+     */
+    public JSONStructuralIndex(CharSequence text) {
+        this(text, 0, text.length());
+    }
+
+    /**
+     * Create a {@code JSONStructuralIndex} for a portion of a {@link CharSequence}.  Positions in the index are indexes
+     * into the {@link CharSequence}.
+     *
+     * @param   text        the JSON text
+     * @param   start       the start index
+     * @param   end         the end index
+     * @throws  JSONParseException  if a string is not terminated
+     */
+    public JSONStructuralIndex(CharSequence text, int start, int end) {
+        positions = new int[initialCapacity(end - start)];
+        int i = start;
+        while (true) {
+            i = JSONScanner.scanStructural(text, i, end);
+            if (i >= end)
+                break;
+            add(i);
+            if (text.charAt(i++) == '"') {
+                while (true) {
+                    i = JSONScanner.scanString(text, i, end);
+                    if (i >= end)
+                        throw new JSONParseException(ERROR_UNTERMINATED_STRING, end);
+                    char ch = text.charAt(i++);
+                    if (ch == '"')
+                        break;
+                    if (ch == '\\')
+                        i++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a {@code JSONStructuralIndex} for JSON in UTF-8 in a {@link ByteBuffer}, from the position to the limit.
+     * Positions in the index are indexes into the {@link ByteBuffer}; the position of the buffer is not modified.
+     *
+     * @param   buffer      the {@link ByteBuffer}
+     * @throws  JSONParseException  if a string is not terminated
+     */
+    public JSONStructuralIndex(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        int i = buffer.position();
+        positions = new int[initialCapacity(limit - i)];
+        while (true) {
+            i = JSONScanner.scanStructural(buffer, i, limit);
+            if (i >= limit)
+                break;
+            add(i);
+            if (buffer.get(i++) == '"') {
+                while (true) {
+                    i = JSONScanner.scanString(buffer, i, limit);
+                    if (i >= limit)
+                        throw new JSONParseException(ERROR_UNTERMINATED_STRING, limit);
+                    int b = buffer.get(i++);
+                    if (b == '"')
+                        break;
+                    if (b == '\\')
+                        i++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the number of structural positions in the index.
+     *
+     * @return              the number of positions
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Get a structural position.
+     *
+     * @param   n           the index of the entry
+     * @return              the position in the text
+     * @throws  IndexOutOfBoundsException   if the entry index is out of range
+     */
+    public int getPosition(int n) {
+        if (n < 0 || n >= count)
+            throw new IndexOutOfBoundsException("Index " + n + " out of range");
+        return positions[n];
+    }
+
+    /**
+     * Find the first entry in the index with a position at or after the given position in the text.
+     *
+     * @param   position    the position in the text
+     * @return              the index of the entry, or {@link #size()} if there is no such entry
+     */
+    public int findEntry(int position) {
+        int index = Arrays.binarySearch(positions, 0, count, position);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Get the structural positions as an array.
+     *
+     * @return              a new array containing the positions, in ascending order
+     */
+    public int[] getPositions() {
+        return Arrays.copyOf(positions, count);
+    }
+
+    private void add(int position) {
+        if (count == positions.length)
+            positions = Arrays.copyOf(positions, count * 2);
+        positions[count++] = position;
+    }
+
+    private static int initialCapacity(int length) {
+        return Math.max(length >> 3, 16);
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * @(#) JSONSurrogatePolicy.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+/**
+ * The treatment of lone surrogates (a high surrogate not followed by a low surrogate, or a low surrogate not preceded
+ * by a high surrogate) when a string is output in JSON form or parsed from JSON.  A lone surrogate does not represent
+ * a Unicode character, and it can not be encoded in UTF-8.
+ *
+ * @author  Peter Wall
+ */
+public enum JSONSurrogatePolicy {
+
+    /** Pass lone surrogates through unchanged (output as a Unicode escape sequence when encoding UTF-8). */
+    PASS,
+
+    /** Replace each lone surrogate with the Unicode replacement character {@code U+FFFD}. */
+    REPLACE,
+
+    /** Reject lone surrogates: escaping functions throw a {@link JSONEscapeException} and parsing functions throw a
+     * {@link JSONParseException} with the error code {@link JSONFunctions#ERROR_LONE_SURROGATE}, each with the offset
+     * of the lone surrogate in the input. */
+    REJECT;
+
+    /** The Unicode replacement character. */
+    public static final char REPLACEMENT_CHARACTER = '\uFFFD';
+
+}
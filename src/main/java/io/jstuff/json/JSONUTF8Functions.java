@@ -0,0 +1,768 @@
+/*
+ * @(#) JSONUTF8Functions.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import io.jstuff.util.IntOutput;
+import static io.jstuff.json.JSONFunctions.ERROR_ILLEGAL_CHAR;
+import static io.jstuff.json.JSONFunctions.ERROR_ILLEGAL_ESCAPE_SEQUENCE;
+import static io.jstuff.json.JSONFunctions.ERROR_ILLEGAL_UNICODE_SEQUENCE;
+import static io.jstuff.json.JSONFunctions.ERROR_ILLEGAL_UTF8_SEQUENCE;
+import static io.jstuff.json.JSONFunctions.ERROR_LONE_SURROGATE;
+import static io.jstuff.json.JSONFunctions.ERROR_UNTERMINATED_STRING;
+
+/**
+ * A set of static functions used in conversion to and from JSON string representations, operating directly on UTF-8
+ * bytes.
+ *
+ * @author  Peter Wall
+ */
+public class JSONUTF8Functions {
+
+    private static final int STAGING_BUFFER_SIZE = 512;
+    private static final int MIN_STAGING_BUFFER_SIZE = 16;
+
+    /**
+     * Store a {@link CharSequence} in a byte array as UTF-8 in JSON quoted string form (applying JSON escaping rules).
+     * The characters above the ASCII range ({@code 0x20} to {@code 0x7E}) are output as Unicode escape sequences unless
+     * the {@code includeNonASCII} flag is set to {@code true}, in which case they are encoded as UTF-8 (surrogate pairs
+     * are combined into a single 4-byte sequence; unpaired surrogates are output as Unicode escape sequences).
+     *
+     * @param   array               the byte array
+     * @param   offset              the offset in the array at which to start storing
+     * @param   cs                  the {@link CharSequence}
+     * @param   includeNonASCII     if {@code true}, output the characters above the ASCII range as UTF-8
+     * @return                      the offset following the last byte stored
+     * @throws  ArrayIndexOutOfBoundsException  if the array is not large enough for the output (some bytes may have
+     *                              been stored)
+     */
+    public static int appendString(byte[] array, int offset, CharSequence cs, boolean includeNonASCII) {
+        return appendString(array, offset, cs, JSONEscapePolicy.of(includeNonASCII));
+    }
+
+    /**
+     * Store a {@link CharSequence} in a byte array as UTF-8 in JSON quoted string form, escaping characters according
+     * to the specified {@link JSONEscapePolicy}.
+     *
+     * @param   array               the byte array
+     * @param   offset              the offset in the array at which to start storing
+     * @param   cs                  the {@link CharSequence}
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @return                      the offset following the last byte stored
+     * @throws  ArrayIndexOutOfBoundsException  if the array is not large enough for the output (some bytes may have
+     *                              been stored)
+     * @throws  JSONEscapeException  if the string contains a lone surrogate and the policy is to reject them
+     */
+    public static int appendString(byte[] array, int offset, CharSequence cs, JSONEscapePolicy policy) {
+        if (offset < 0 || offset > array.length)
+            throw new ArrayIndexOutOfBoundsException(offset);
+        if (JSONMetrics.ENABLED)
+            JSONMetrics.recordEscape(cs.length());
+        Encoder encoder = new ArrayEncoder(array, offset, array.length);
+        try {
+            encoder.encodeString(cs, policy);
+        }
+        catch (IOException ignore) {
+            // Can't happen - ArrayEncoder doesn't throw exception
+        }
+        return encoder.pos;
+    }
+
+    /**
+     * Store a {@link CharSequence} in a {@link ByteBuffer} as UTF-8 in JSON quoted string form (applying JSON escaping
+     * rules), starting at the current position.  The characters above the ASCII range ({@code 0x20} to {@code 0x7E})
+     * are output as Unicode escape sequences unless the {@code includeNonASCII} flag is set to {@code true}.  The
+     * buffer may be a heap or a direct buffer; the position is advanced past the bytes stored.
+     *
+     * @param   buffer              the {@link ByteBuffer}
+     * @param   cs                  the {@link CharSequence}
+     * @param   includeNonASCII     if {@code true}, output the characters above the ASCII range as UTF-8
+     * @return                      the number of bytes stored
+     * @throws  BufferOverflowException  if the buffer does not have enough space remaining for the output (some bytes
+     *                              may have been stored)
+     */
+    public static int appendString(ByteBuffer buffer, CharSequence cs, boolean includeNonASCII) {
+        return appendString(buffer, cs, JSONEscapePolicy.of(includeNonASCII));
+    }
+
+    /**
+     * Store a {@link CharSequence} in a {@link ByteBuffer} as UTF-8 in JSON quoted string form, escaping characters
+     * according to the specified {@link JSONEscapePolicy}, starting at the current position.
+     *
+     * @param   buffer              the {@link ByteBuffer}
+     * @param   cs                  the {@link CharSequence}
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @return                      the number of bytes stored
+     * @throws  BufferOverflowException  if the buffer does not have enough space remaining for the output (some bytes
+     *                              may have been stored)
+     * @throws  JSONEscapeException  if the string contains a lone surrogate and the policy is to reject them
+     */
+    public static int appendString(ByteBuffer buffer, CharSequence cs, JSONEscapePolicy policy) {
+        if (JSONMetrics.ENABLED)
+            JSONMetrics.recordEscape(cs.length());
+        int startPosition = buffer.position();
+        try {
+            if (buffer.hasArray()) {
+                int arrayOffset = buffer.arrayOffset();
+                Encoder encoder = new HeapByteBufferEncoder(buffer.array(), arrayOffset + startPosition,
+                        arrayOffset + buffer.limit());
+                encoder.encodeString(cs, policy);
+                buffer.position(encoder.pos - arrayOffset);
+            }
+            else {
+                Encoder encoder = new ByteBufferEncoder(buffer);
+                encoder.encodeString(cs, policy);
+                encoder.flush();
+            }
+        }
+        catch (IOException ignore) {
+            // Can't happen - ByteBuffer doesn't throw exception
+        }
+        return buffer.position() - startPosition;
+    }
+
+    /**
+     * Write a {@link CharSequence} to an {@link OutputStream} as UTF-8 in JSON quoted string form (applying JSON
+     * escaping rules).  The characters above the ASCII range ({@code 0x20} to {@code 0x7E}) are output as Unicode escape
+     * sequences unless the {@code includeNonASCII} flag is set to {@code true}.  The bytes are accumulated in a small
+     * staging buffer and written to the {@link OutputStream} in blocks.
+     *
+     * @param   out                 the {@link OutputStream}
+     * @param   cs                  the {@link CharSequence}
+     * @param   includeNonASCII     if {@code true}, output the characters above the ASCII range as UTF-8
+     * @return                      the number of bytes written
+     * @throws  IOException         if thrown by the {@link OutputStream}
+     */
+    public static int writeString(OutputStream out, CharSequence cs, boolean includeNonASCII) throws IOException {
+        return writeString(out, cs, JSONEscapePolicy.of(includeNonASCII));
+    }
+
+    /**
+     * Write a {@link CharSequence} to an {@link OutputStream} as UTF-8 in JSON quoted string form, escaping characters
+     * according to the specified {@link JSONEscapePolicy}.
+     *
+     * @param   out                 the {@link OutputStream}
+     * @param   cs                  the {@link CharSequence}
+     * @param   policy              the {@link JSONEscapePolicy}
+     * @return                      the number of bytes written
+     * @throws  IOException         if thrown by the {@link OutputStream}
+     * @throws  JSONEscapeException  if the string contains a lone surrogate and the policy is to reject them
+     */
+    public static int writeString(OutputStream out, CharSequence cs, JSONEscapePolicy policy) throws IOException {
+        if (JSONMetrics.ENABLED)
+            JSONMetrics.recordEscape(cs.length());
+        OutputStreamEncoder encoder = new OutputStreamEncoder(out);
+        encoder.encodeString(cs, policy);
+        encoder.flush();
+        return encoder.count;
+    }
+
+    /**
+     * Get the number of bytes that would be output for a {@link CharSequence} in JSON string form in UTF-8 (applying
+     * JSON escaping rules), not including the enclosing double quotes.  The characters above the ASCII range
+     * ({@code 0x20} to {@code 0x7E}) are counted as Unicode escape sequences unless the {@code includeNonASCII} flag is
+     * set to {@code true}.
+     *
+     * @param   cs              the {@link CharSequence}
+     * @param   includeNonASCII if {@code true}, count the characters above the ASCII range as UTF-8 sequences
+     * @return                  the number of bytes
+     */
+    public static int escapedLength(CharSequence cs, boolean includeNonASCII) {
+        return escapedLength(cs, JSONEscapePolicy.of(includeNonASCII));
+    }
+
+    /**
+     * Get the number of bytes that would be output for a {@link CharSequence} in JSON string form in UTF-8, escaping
+     * characters according to the specified {@link JSONEscapePolicy}, not including the enclosing double quotes.
+     *
+     * @param   cs              the {@link CharSequence}
+     * @param   policy          the {@link JSONEscapePolicy}
+     * @return                  the number of bytes
+     * @throws  JSONEscapeException  if the string contains a lone surrogate and the policy is to reject them
+     */
+    public static int escapedLength(CharSequence cs, JSONEscapePolicy policy) {
+        int length = 0;
+        for (int i = 0, n = cs.length(); i < n; i++) {
+            char ch = cs.charAt(i);
+            if (ch < JSONEscapePolicy.TABLE_SIZE) {
+                String escape = policy.getEscape(ch);
+                length += escape != null ? escape.length() : ch < 0x80 ? 1 : 2;
+            }
+            else if (Character.isSurrogate(ch)) {
+                if (JSONFunctions.isSurrogatePair(cs, i, n)) {
+                    length += policy.isEscapedAboveTable(ch) ? 12 : 4;
+                    i++;
+                }
+                else {
+                    ch = policy.loneSurrogate(ch, i);
+                    length += Character.isSurrogate(ch) || policy.isEscapedAboveTable(ch) ? 6 : 3;
+                }
+            }
+            else if (policy.isEscapedAboveTable(ch))
+                length += 6;
+            else if (ch < 0x800)
+                length += 2;
+            else
+                length += 3;
+        }
+        return length;
+    }
+
+    /**
+     * Parse a JSON string from the current position of a {@link ByteBuffer} containing UTF-8 (the position must be
+     * after the opening double quote).  The position is left after the closing double quote.  The buffer may be a heap,
+     * direct or memory-mapped buffer; to parse from a byte array, use {@link ByteBuffer#wrap(byte[], int, int)} (which
+     * does not copy the array).
+     *
+     * <p>The UTF-8 is validated (overlong forms, encoded surrogates and values above {@code U+10FFFF} are rejected).
+     * If the string contains no escape sequences, the result is created directly from the bytes, without an
+     * intermediate {@code char} buffer.  In the case of an error, the position is left after the byte at which the
+     * error was detected, and the offset in the {@link JSONParseException} is the index of the offending byte (as for
+     * {@link JSONFunctions#parseString(io.jstuff.text.TextMatcher)}).</p>
+     *
+     * @param   buffer          the {@link ByteBuffer}
+     * @return                  the JSON string
+     * @throws  IllegalArgumentException  if there are any errors in the JSON
+     */
+    public static String parseString(ByteBuffer buffer) {
+        return parseString(buffer, JSONSurrogatePolicy.PASS);
+    }
+
+    /**
+     * Parse a JSON string from the current position of a {@link ByteBuffer} containing UTF-8 (the position must be
+     * after the opening double quote), applying the specified {@link JSONSurrogatePolicy} to lone surrogates in
+     * Unicode escape sequences (a high surrogate escape followed by a low surrogate escape is decoded as a pair).  The
+     * position is left after the closing double quote.
+     *
+     * @param   buffer          the {@link ByteBuffer}
+     * @param   policy          the {@link JSONSurrogatePolicy}
+     * @return                  the JSON string
+     * @throws  IllegalArgumentException  if there are any errors in the JSON, or (if the policy is
+     *                                    {@link JSONSurrogatePolicy#REJECT}) it contains a lone surrogate
+     */
+    public static String parseString(ByteBuffer buffer, JSONSurrogatePolicy policy) {
+        int start = buffer.position();
+        int limit = buffer.limit();
+        int i = start;
+        boolean ascii = true;
+        while (true) {
+            i = JSONScanner.scanString(buffer, i, limit);
+            if (i >= limit)
+                throw parseError(buffer, limit, ERROR_UNTERMINATED_STRING);
+            int b = buffer.get(i);
+            if (b == '"') {
+                String result = newString(buffer, start, i, ascii ? StandardCharsets.ISO_8859_1 :
+                        StandardCharsets.UTF_8);
+                buffer.position(i + 1);
+                if (JSONMetrics.ENABLED)
+                    JSONMetrics.recordParse(result.length(), false);
+                return result;
+            }
+            if (b == '\\')
+                break;
+            if (b >= 0)
+                throw parseError(buffer, i, i + 1, ERROR_ILLEGAL_CHAR);
+            decodeUTF8(buffer, i, limit);
+            i += sequenceLength(b);
+            ascii = false;
+        }
+        StringBuilder sb = new StringBuilder(i - start + 16);
+        if (ascii) {
+            for (int j = start; j < i; j++)
+                sb.append((char)buffer.get(j));
+        }
+        else
+            sb.append(newString(buffer, start, i, StandardCharsets.UTF_8));
+        while (true) {
+            if (++i >= limit)
+                throw parseError(buffer, limit, ERROR_UNTERMINATED_STRING);
+            int b = buffer.get(i++);
+            if (b == '"')
+                sb.append('"');
+            else if (b == '\\')
+                sb.append('\\');
+            else if (b == '/')
+                sb.append('/');
+            else if (b == 'b')
+                sb.append('\b');
+            else if (b == 'f')
+                sb.append('\f');
+            else if (b == 'n')
+                sb.append('\n');
+            else if (b == 'r')
+                sb.append('\r');
+            else if (b == 't')
+                sb.append('\t');
+            else if (b == 'u') {
+                int result = 0;
+                for (int j = 0; j < 4; j++) {
+                    int digit = i < limit ? hexValue(buffer.get(i)) : -1;
+                    if (digit < 0)
+                        throw parseError(buffer, i - j, i, ERROR_ILLEGAL_UNICODE_SEQUENCE);
+                    result = (result << 4) | digit;
+                    i++;
+                }
+                if (policy != JSONSurrogatePolicy.PASS && Character.isSurrogate((char)result)) {
+                    int low = Character.isHighSurrogate((char)result) ? lowSurrogateEscape(buffer, i, limit) : -1;
+                    if (low >= 0) {
+                        sb.append((char)result).append((char)low);
+                        i += 6;
+                    }
+                    else if (policy == JSONSurrogatePolicy.REJECT)
+                        throw parseError(buffer, i - 6, ERROR_LONE_SURROGATE);
+                    else
+                        sb.append(JSONSurrogatePolicy.REPLACEMENT_CHARACTER);
+                }
+                else
+                    sb.append((char)result);
+            }
+            else
+                throw parseError(buffer, i - 1, i, ERROR_ILLEGAL_ESCAPE_SEQUENCE);
+            while (true) {
+                int runStart = i;
+                i = JSONScanner.scanString(buffer, i, limit);
+                for (int j = runStart; j < i; j++)
+                    sb.append((char)buffer.get(j));
+                if (i >= limit)
+                    throw parseError(buffer, limit, ERROR_UNTERMINATED_STRING);
+                b = buffer.get(i);
+                if (b == '"') {
+                    buffer.position(i + 1);
+                    if (JSONMetrics.ENABLED)
+                        JSONMetrics.recordParse(sb.length(), true);
+                    return sb.toString();
+                }
+                if (b == '\\')
+                    break;
+                if (b >= 0)
+                    throw parseError(buffer, i, i + 1, ERROR_ILLEGAL_CHAR);
+                sb.appendCodePoint(decodeUTF8(buffer, i, limit));
+                i += sequenceLength(b);
+            }
+        }
+    }
+
+    /**
+     * Decode a Unicode escape sequence representing a low surrogate, if one is present at the specified index.
+     *
+     * @param   buffer          the {@link ByteBuffer}
+     * @param   i               the index
+     * @param   limit           the limit of the data in the buffer
+     * @return                  the low surrogate, or -1 if there is no such escape sequence at the index
+     */
+    private static int lowSurrogateEscape(ByteBuffer buffer, int i, int limit) {
+        if (i + 6 > limit || buffer.get(i) != '\\' || buffer.get(i + 1) != 'u')
+            return -1;
+        int result = 0;
+        for (int j = i + 2; j < i + 6; j++) {
+            int digit = hexValue(buffer.get(j));
+            if (digit < 0)
+                return -1;
+            result = (result << 4) | digit;
+        }
+        return Character.isLowSurrogate((char)result) ? result : -1;
+    }
+
+    /**
+     * Skip a JSON string in UTF-8 from the current position of a {@link ByteBuffer} (which must be positioned after the
+     * opening double quote), validating it exactly as {@link #parseString(ByteBuffer)} does, but without creating the
+     * decoded string.  The position is left after the closing double quote.
+     *
+     * <p>The function returns the length of the decoded string in {@code char}s; if this is less than the number of
+     * bytes between the double quotes, the string contained escape sequences or non-ASCII characters.</p>
+     *
+     * @param   buffer          the {@link ByteBuffer}
+     * @return                  the length of the decoded string
+     * @throws  IllegalArgumentException  if there are any errors in the JSON
+     */
+    public static int skipString(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        int i = buffer.position();
+        int length = 0;
+        while (true) {
+            int runStart = i;
+            i = JSONScanner.scanString(buffer, i, limit);
+            length += i - runStart;
+            if (i >= limit)
+                throw parseError(buffer, limit, ERROR_UNTERMINATED_STRING);
+            int b = buffer.get(i);
+            if (b == '"') {
+                buffer.position(i + 1);
+                return length;
+            }
+            if (b == '\\') {
+                if (++i >= limit)
+                    throw parseError(buffer, limit, ERROR_UNTERMINATED_STRING);
+                b = buffer.get(i++);
+                if (b == 'u') {
+                    for (int j = 0; j < 4; j++) {
+                        if (i >= limit || hexValue(buffer.get(i)) < 0)
+                            throw parseError(buffer, i - j, i, ERROR_ILLEGAL_UNICODE_SEQUENCE);
+                        i++;
+                    }
+                }
+                else if (b != '"' && b != '\\' && b != '/' && b != 'b' && b != 'f' && b != 'n' && b != 'r' &&
+                        b != 't')
+                    throw parseError(buffer, i - 1, i, ERROR_ILLEGAL_ESCAPE_SEQUENCE);
+                length++;
+            }
+            else if (b >= 0)
+                throw parseError(buffer, i, i + 1, ERROR_ILLEGAL_CHAR);
+            else {
+                length += Character.charCount(decodeUTF8(buffer, i, limit));
+                i += sequenceLength(b);
+            }
+        }
+    }
+
+    /**
+     * Skip any whitespace (as defined by the JSON specification) at the current position of a {@link ByteBuffer}
+     * containing JSON in UTF-8.  On return, the position is at the next non-space byte (or the limit).  The bytes are
+     * examined eight at a time.
+     *
+     * @param   buffer          the {@link ByteBuffer}
+     */
+    public static void skipSpaces(ByteBuffer buffer) {
+        buffer.position(JSONScanner.scanSpaces(buffer, buffer.position(), buffer.limit()));
+    }
+
+    /**
+     * Decode a UTF-8 multi-byte sequence, validating it according to the rules in
+     * <a href="https://www.rfc-editor.org/rfc/rfc3629.html#section-4">RFC 3629</a>.
+     *
+     * @param   buffer          the {@link ByteBuffer}
+     * @param   index           the index of the first byte of the sequence
+     * @param   limit           the limit of the data in the buffer
+     * @return                  the code point
+     * @throws  IllegalArgumentException  if the sequence is invalid or incomplete
+     */
+    private static int decodeUTF8(ByteBuffer buffer, int index, int limit) {
+        int b = buffer.get(index) & 0xFF;
+        int length = sequenceLength(b);
+        int cp;
+        int min;
+        if (length == 2) {
+            cp = b & 0x1F;
+            min = 0x80;
+        }
+        else if (length == 3) {
+            cp = b & 0x0F;
+            min = 0x800;
+        }
+        else if (length == 4) {
+            cp = b & 0x07;
+            min = 0x10000;
+        }
+        else
+            throw parseError(buffer, index, index + 1, ERROR_ILLEGAL_UTF8_SEQUENCE);
+        for (int i = 1; i < length; i++) {
+            if (index + i >= limit)
+                throw parseError(buffer, limit, ERROR_UNTERMINATED_STRING);
+            int cb = buffer.get(index + i);
+            if ((cb & 0xC0) != 0x80)
+                throw parseError(buffer, index + i, index + i + 1, ERROR_ILLEGAL_UTF8_SEQUENCE);
+            cp = (cp << 6) | (cb & 0x3F);
+        }
+        if (cp < min || cp > Character.MAX_CODE_POINT || cp >= Character.MIN_SURROGATE &&
+                cp <= Character.MAX_SURROGATE)
+            throw parseError(buffer, index, index + length, ERROR_ILLEGAL_UTF8_SEQUENCE);
+        return cp;
+    }
+
+    /**
+     * Get the length of a UTF-8 sequence from its first byte.
+     *
+     * @param   b               the first byte
+     * @return                  the length of the sequence, or 0 if the byte is not a valid first byte
+     */
+    private static int sequenceLength(int b) {
+        b &= 0xFF;
+        if (b < 0x80)
+            return 1;
+        if (b < 0xC2)
+            return 0;
+        if (b < 0xE0)
+            return 2;
+        if (b < 0xF0)
+            return 3;
+        if (b < 0xF5)
+            return 4;
+        return 0;
+    }
+
+    private static int hexValue(int b) {
+        if (b >= '0' && b <= '9')
+            return b - '0';
+        if (b >= 'A' && b <= 'F')
+            return b - 'A' + 10;
+        if (b >= 'a' && b <= 'f')
+            return b - 'a' + 10;
+        return -1;
+    }
+
+    private static String newString(ByteBuffer buffer, int start, int end, Charset charset) {
+        if (buffer.hasArray())
+            return new String(buffer.array(), buffer.arrayOffset() + start, end - start, charset);
+        byte[] bytes = new byte[end - start];
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(start);
+        duplicate.get(bytes);
+        return new String(bytes, charset);
+    }
+
+    /**
+     * Create a {@link JSONParseException}, setting the position of the {@link ByteBuffer} to the index of the error.
+     *
+     * @param   buffer          the {@link ByteBuffer}
+     * @param   i               the index of the error
+     * @param   errorCode       the error code
+     * @return                  the exception
+     */
+    private static JSONParseException parseError(ByteBuffer buffer, int i, int errorCode) {
+        return parseError(buffer, i, i, errorCode);
+    }
+
+    /**
+     * Create a {@link JSONParseException} with the offset of the byte at which the error was detected, setting the
+     * position of the {@link ByteBuffer} separately (for some errors, the position is left after the offending byte).
+     *
+     * @param   buffer          the {@link ByteBuffer}
+     * @param   offset          the index of the offending byte
+     * @param   position        the position to be set in the {@link ByteBuffer}
+     * @param   errorCode       the error code
+     * @return                  the exception
+     */
+    private static JSONParseException parseError(ByteBuffer buffer, int offset, int position, int errorCode) {
+        buffer.position(position);
+        return new JSONParseException(errorCode, offset);
+    }
+
+    /**
+     * Base class for the UTF-8 encoders.  The bytes are stored in an array, and the {@link #flush()} function is called
+     * when there is not enough space in the array for the next character.
+     */
+    private static abstract class Encoder {
+
+        final byte[] buf;
+        final int limit;
+        int pos;
+
+        Encoder(byte[] buf, int pos, int limit) {
+            this.buf = buf;
+            this.pos = pos;
+            this.limit = limit;
+        }
+
+        abstract void flush() throws IOException;
+
+        void ensure(int n) throws IOException {
+            if (pos + n > limit) {
+                flush();
+                if (pos + n > limit)
+                    throw overflow();
+            }
+        }
+
+        RuntimeException overflow() {
+            return new BufferOverflowException();
+        }
+
+        void encodeString(CharSequence cs, JSONEscapePolicy policy) throws IOException {
+            ensure(1);
+            buf[pos++] = '"';
+            for (int i = 0, n = cs.length(); i < n; i++) {
+                char ch = cs.charAt(i);
+                if (ch < JSONEscapePolicy.TABLE_SIZE) {
+                    String escape = policy.getEscape(ch);
+                    if (escape != null)
+                        encodeEscape(escape);
+                    else if (ch < 0x80) {
+                        ensure(1);
+                        buf[pos++] = (byte)ch;
+                    }
+                    else {
+                        ensure(2);
+                        buf[pos++] = (byte)(0xC0 | (ch >> 6));
+                        buf[pos++] = (byte)(0x80 | (ch & 0x3F));
+                    }
+                }
+                else if (Character.isSurrogate(ch)) {
+                    if (JSONFunctions.isSurrogatePair(cs, i, n)) {
+                        char low = cs.charAt(++i);
+                        if (policy.isEscapedAboveTable(ch)) {
+                            encodeUnicodeEscape(ch);
+                            encodeUnicodeEscape(low);
+                        }
+                        else {
+                            int cp = Character.toCodePoint(ch, low);
+                            ensure(4);
+                            buf[pos++] = (byte)(0xF0 | (cp >> 18));
+                            buf[pos++] = (byte)(0x80 | ((cp >> 12) & 0x3F));
+                            buf[pos++] = (byte)(0x80 | ((cp >> 6) & 0x3F));
+                            buf[pos++] = (byte)(0x80 | (cp & 0x3F));
+                        }
+                    }
+                    else {
+                        ch = policy.loneSurrogate(ch, i);
+                        if (Character.isSurrogate(ch) || policy.isEscapedAboveTable(ch))
+                            encodeUnicodeEscape(ch);
+                        else
+                            encodeChar3(ch);
+                    }
+                }
+                else if (policy.isEscapedAboveTable(ch))
+                    encodeUnicodeEscape(ch);
+                else if (ch < 0x800) {
+                    ensure(2);
+                    buf[pos++] = (byte)(0xC0 | (ch >> 6));
+                    buf[pos++] = (byte)(0x80 | (ch & 0x3F));
+                }
+                else
+                    encodeChar3(ch);
+            }
+            ensure(1);
+            buf[pos++] = '"';
+        }
+
+        private void encodeEscape(String escape) throws IOException {
+            int n = escape.length();
+            ensure(n);
+            for (int i = 0; i < n; i++)
+                buf[pos++] = (byte)escape.charAt(i);
+        }
+
+        private void encodeChar3(char ch) throws IOException {
+            ensure(3);
+            buf[pos++] = (byte)(0xE0 | (ch >> 12));
+            buf[pos++] = (byte)(0x80 | ((ch >> 6) & 0x3F));
+            buf[pos++] = (byte)(0x80 | (ch & 0x3F));
+        }
+
+        private void encodeUnicodeEscape(char ch) throws IOException {
+            ensure(6);
+            buf[pos++] = '\\';
+            buf[pos++] = 'u';
+            buf[pos++] = (byte)IntOutput.digitsHexLC[(ch >> 12) & 0xF];
+            buf[pos++] = (byte)IntOutput.digitsHexLC[(ch >> 8) & 0xF];
+            buf[pos++] = (byte)IntOutput.digitsHexLC[(ch >> 4) & 0xF];
+            buf[pos++] = (byte)IntOutput.digitsHexLC[ch & 0xF];
+        }
+
+    }
+
+    /**
+     * Encoder storing directly into a caller-supplied byte array.
+     */
+    private static class ArrayEncoder extends Encoder {
+
+        ArrayEncoder(byte[] array, int offset, int limit) {
+            super(array, offset, limit);
+        }
+
+        @Override
+        void flush() {
+            throw overflow();
+        }
+
+        @Override
+        RuntimeException overflow() {
+            return new ArrayIndexOutOfBoundsException(limit);
+        }
+
+    }
+
+    /**
+     * Encoder storing directly into the backing array of a heap {@link ByteBuffer}.
+     */
+    private static class HeapByteBufferEncoder extends ArrayEncoder {
+
+        HeapByteBufferEncoder(byte[] array, int offset, int limit) {
+            super(array, offset, limit);
+        }
+
+        @Override
+        RuntimeException overflow() {
+            return new BufferOverflowException();
+        }
+
+    }
+
+    /**
+     * Encoder staging the bytes in a local array before transferring them to a {@link ByteBuffer} (used for direct
+     * and read-only buffers).
+     */
+    private static class ByteBufferEncoder extends Encoder {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferEncoder(ByteBuffer buffer) {
+            this(buffer, Math.min(Math.max(buffer.remaining(), MIN_STAGING_BUFFER_SIZE), STAGING_BUFFER_SIZE));
+        }
+
+        private ByteBufferEncoder(ByteBuffer buffer, int size) {
+            super(new byte[size], 0, size);
+            this.buffer = buffer;
+        }
+
+        @Override
+        void flush() {
+            buffer.put(buf, 0, pos);
+            pos = 0;
+        }
+
+    }
+
+    /**
+     * Encoder staging the bytes in a local array before writing them to an {@link OutputStream}.
+     */
+    private static class OutputStreamEncoder extends Encoder {
+
+        private final OutputStream out;
+        int count;
+
+        OutputStreamEncoder(OutputStream out) {
+            super(new byte[STAGING_BUFFER_SIZE], 0, STAGING_BUFFER_SIZE);
+            this.out = out;
+        }
+
+        @Override
+        void flush() throws IOException {
+            if (pos > 0) {
+                out.write(buf, 0, pos);
+                count += pos;
+                pos = 0;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * @(#) BulkCharConsumerTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import io.jstuff.json.BulkCharConsumer;
+import io.jstuff.json.EncodedJSONString;
+import io.jstuff.json.JSONEscapePolicy;
+import io.jstuff.json.JSONFunctions;
+
+public class BulkCharConsumerTest {
+
+    private static final String[] strings = { "", "plain", "tab\there", "\"quoted\"", "Müller — 😀", "a<b>&c ",
+            "\u0001\u001F\u007F" };
+    private static final JSONEscapePolicy[] policies = { JSONEscapePolicy.DEFAULT, JSONEscapePolicy.INCLUDE_NON_ASCII,
+            JSONEscapePolicy.HTML_SAFE, JSONEscapePolicy.JAVASCRIPT_SAFE, JSONEscapePolicy.ESCAPE_SLASH };
+
+    @Test
+    public void shouldOutputSameCharactersAsIntConsumer() {
+        for (String str : strings) {
+            for (JSONEscapePolicy policy : policies) {
+                StringBuilder expected = new StringBuilder();
+                JSONFunctions.outputString(str, policy, ch -> expected.append((char)ch));
+                StringBuilder sb = new StringBuilder();
+                JSONFunctions.outputString(str, policy, BulkCharConsumer.of(sb));
+                assertEquals(expected.toString(), sb.toString());
+                assertEquals(JSONFunctions.escapeString(str, policy), sb.toString());
+            }
+        }
+    }
+
+    @Test
+    public void shouldPassRunsOfUnescapedCharacters() {
+        List<String> calls = new ArrayList<>();
+        BulkCharConsumer consumer = new BulkCharConsumer() {
+            @Override
+            public void accept(int value) {
+                calls.add(String.valueOf((char)value));
+            }
+            @Override
+            public void accept(CharSequence cs, int start, int end) {
+                calls.add(cs.subSequence(start, end).toString());
+            }
+        };
+        JSONFunctions.outputString("first line\nsecond line", false, consumer);
+        assertEquals(5, calls.size());
+        assertEquals("\"", calls.get(0));
+        assertEquals("first line", calls.get(1));
+        assertEquals("\\n", calls.get(2));
+        assertEquals("second line", calls.get(3));
+        assertEquals("\"", calls.get(4));
+    }
+
+    @Test
+    public void shouldUseDefaultRunMethods() {
+        StringBuilder sb = new StringBuilder();
+        BulkCharConsumer consumer = ch -> sb.append((char)ch);
+        consumer.accept("abcdef", 1, 3);
+        consumer.accept(new char[] { 'w', 'x', 'y', 'z' }, 2, 4);
+        assertEquals("bcyz", sb.toString());
+    }
+
+    @Test
+    public void shouldAdaptIntConsumer() {
+        BulkCharConsumer bulk = ch -> {};
+        assertSame(bulk, BulkCharConsumer.of(bulk));
+        StringBuilder sb = new StringBuilder();
+        IntConsumer consumer = ch -> sb.append((char)ch);
+        BulkCharConsumer adapted = BulkCharConsumer.of(consumer);
+        assertNotSame(consumer, adapted);
+        JSONFunctions.outputString("a\tb", true, adapted);
+        assertEquals("\"a\\tb\"", sb.toString());
+    }
+
+    @Test
+    public void shouldOutputEncodedStringInSingleCall() {
+        int[] count = new int[1];
+        StringBuilder sb = new StringBuilder();
+        new EncodedJSONString("key\n").output(new BulkCharConsumer() {
+            @Override
+            public void accept(int value) {
+                throw new IllegalStateException();
+            }
+            @Override
+            public void accept(char[] array, int start, int end) {
+                count[0]++;
+                sb.append(array, start, end - start);
+            }
+        });
+        assertEquals(1, count[0]);
+        assertEquals("\"key\\n\"", sb.toString());
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * @(#) EncodedJSONStringTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+
+import io.jstuff.json.EncodedJSONString;
+import io.jstuff.json.JSONEscapePolicy;
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONUTF8Functions;
+
+public class EncodedJSONStringTest {
+
+    private static final String[] strings = { "", "name", "tab\there", "Müller Straße", "mdash — emoji 😀", "<&>" };
+
+    @Test
+    public void shouldEncodeSameAsEscapeString() {
+        for (String str : strings) {
+            for (JSONEscapePolicy policy : new JSONEscapePolicy[] { JSONEscapePolicy.DEFAULT,
+                    JSONEscapePolicy.INCLUDE_NON_ASCII, JSONEscapePolicy.HTML_SAFE }) {
+                EncodedJSONString encoded = new EncodedJSONString(str, policy);
+                String expected = JSONFunctions.escapeString(str, policy);
+                assertEquals(str, encoded.getString());
+                assertEquals(expected, encoded.toString());
+                assertEquals(expected.length(), encoded.length());
+            }
+        }
+        assertEquals("\"M\\u00fcller\"", new EncodedJSONString("Müller").toString());
+        assertEquals("\"Müller\"", new EncodedJSONString("Müller", true).toString());
+    }
+
+    @Test
+    public void shouldAppendToAppendable() throws IOException {
+        EncodedJSONString encoded = new EncodedJSONString("key\n", true);
+        StringBuilder sb = new StringBuilder("{");
+        encoded.appendTo(sb);
+        assertEquals("{\"key\\n\"", sb.toString());
+        StringWriter sw = new StringWriter();
+        encoded.appendTo(sw);
+        assertEquals("\"key\\n\"", sw.toString());
+        StringBuilder sb2 = new StringBuilder();
+        encoded.appendTo(new Appendable() {
+            @Override
+            public Appendable append(CharSequence csq) {
+                sb2.append(csq);
+                return this;
+            }
+            @Override
+            public Appendable append(CharSequence csq, int start, int end) {
+                sb2.append(csq, start, end);
+                return this;
+            }
+            @Override
+            public Appendable append(char c) {
+                sb2.append(c);
+                return this;
+            }
+        });
+        assertEquals("\"key\\n\"", sb2.toString());
+    }
+
+    @Test
+    public void shouldOutputUsingIntConsumer() {
+        StringBuilder sb = new StringBuilder();
+        new EncodedJSONString("a\"b").output(ch -> sb.append((char)ch));
+        assertEquals("\"a\\\"b\"", sb.toString());
+    }
+
+    @Test
+    public void shouldEncodeSameAsUTF8Functions() {
+        for (String str : strings) {
+            for (boolean includeNonASCII : new boolean[] { false, true }) {
+                EncodedJSONString encoded = new EncodedJSONString(str, includeNonASCII);
+                byte[] expected = new byte[100];
+                int length = JSONUTF8Functions.appendString(expected, 0, str, includeNonASCII);
+                byte[] array = new byte[length + 2];
+                assertEquals(length + 1, encoded.appendTo(array, 1));
+                assertArrayEquals(Arrays.copyOf(expected, length), Arrays.copyOfRange(array, 1, length + 1));
+                assertEquals(length, encoded.getUTF8Length());
+            }
+        }
+    }
+
+    @Test
+    public void shouldCopyToByteBufferAndOutputStream() throws IOException {
+        EncodedJSONString encoded = new EncodedJSONString("Straße", true);
+        byte[] expected = "\"Straße\"".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(20);
+        assertEquals(expected.length, encoded.appendTo(buffer));
+        assertEquals(expected.length, buffer.position());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(expected.length, encoded.writeTo(out));
+        assertArrayEquals(expected, out.toByteArray());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenInsufficientSpace() {
+        EncodedJSONString encoded = new EncodedJSONString("abcdef");
+        byte[] array = new byte[10];
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> encoded.appendTo(array, 3));
+        assertArrayEquals(new byte[10], array);
+        ByteBuffer buffer = ByteBuffer.allocate(7);
+        assertThrows(BufferOverflowException.class, () -> encoded.appendTo(buffer));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void shouldCompareEncodedForm() {
+        assertEquals(new EncodedJSONString("abc"), new EncodedJSONString(new StringBuilder("abc")));
+        assertEquals(new EncodedJSONString("abc").hashCode(), new EncodedJSONString("abc", true).hashCode());
+        assertNotEquals(new EncodedJSONString("é"), new EncodedJSONString("é", true));
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * @(#) JSONBatchEscaperTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import io.jstuff.json.JSONBatchEscaper;
+import io.jstuff.json.JSONEscapePolicy;
+import io.jstuff.json.JSONFunctions;
+
+public class JSONBatchEscaperTest {
+
+    private static final String sampleChars = "abcdefgh \"\\/\n\t\u0001\u007Fé—<>& 😀\uD800";
+
+    @Test
+    public void shouldEscapeBatchOfStrings() {
+        JSONBatchEscaper escaper = new JSONBatchEscaper();
+        JSONBatchEscaper.Batch batch = escaper.escape("abc", "", "tab\there", "Müller");
+        assertEquals(4, batch.size());
+        assertEquals("\"abc\"", batch.getString(0));
+        assertEquals("\"\"", batch.getString(1));
+        assertEquals("\"tab\\there\"", batch.getString(2));
+        assertEquals("\"M\\u00fcller\"", batch.getString(3));
+        assertEquals(0, batch.getStart(0));
+        assertEquals(5, batch.getEnd(0));
+        assertEquals(5, batch.getStart(1));
+        assertEquals(batch.getChars().length, batch.getEnd(3));
+    }
+
+    @Test
+    public void shouldEscapeEmptyBatch() {
+        JSONBatchEscaper.Batch batch = new JSONBatchEscaper().escape(Collections.emptyList());
+        assertEquals(0, batch.size());
+        assertEquals(0, batch.getChars().length);
+    }
+
+    @Test
+    public void shouldProduceSameResultAsSequentialEscaping() {
+        Random random = new Random(12345);
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; i < 500; i++)
+            strings.add(randomString(random, random.nextInt(i % 50 == 0 ? 2000 : 40)));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            JSONEscapePolicy[] policies = { JSONEscapePolicy.DEFAULT, JSONEscapePolicy.INCLUDE_NON_ASCII,
+                    JSONEscapePolicy.JAVASCRIPT_SAFE, JSONEscapePolicy.HTML_SAFE };
+            for (JSONEscapePolicy policy : policies) {
+                StringBuilder expected = new StringBuilder();
+                for (String str : strings)
+                    expected.append(JSONFunctions.escapeString(str, policy));
+                for (int threshold : new int[] { 1, 7, 100, 100000 }) {
+                    JSONBatchEscaper escaper = new JSONBatchEscaper(pool, threshold, policy);
+                    JSONBatchEscaper.Batch batch = escaper.escape(strings);
+                    assertEquals(expected.toString(), new String(batch.getChars()));
+                    for (int i = 0; i < strings.size(); i++)
+                        assertEquals(JSONFunctions.escapeString(strings.get(i), policy), batch.getString(i));
+                }
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldSplitLargeStringWithoutSeparatingSurrogatePair() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+            sb.append("ab😀\n");
+        String str = sb.toString();
+        for (int threshold : new int[] { 3, 4, 5, 64 }) {
+            JSONBatchEscaper escaper = new JSONBatchEscaper(ForkJoinPool.commonPool(), threshold,
+                    JSONEscapePolicy.INCLUDE_NON_ASCII);
+            assertEquals(JSONFunctions.escapeString(str, true), escaper.escape(str).getString(0));
+        }
+    }
+
+    @Test
+    public void shouldEscapeBatchWithHugeThreshold() {
+        for (int threshold : new int[] { Integer.MAX_VALUE, Integer.MAX_VALUE - 1 }) {
+            JSONBatchEscaper escaper = new JSONBatchEscaper(ForkJoinPool.commonPool(), threshold,
+                    JSONEscapePolicy.DEFAULT);
+            JSONBatchEscaper.Batch batch = escaper.escape("ab", "c\nd", "abc");
+            assertEquals(3, batch.size());
+            assertEquals("\"ab\"", batch.getString(0));
+            assertEquals("\"c\\nd\"", batch.getString(1));
+            assertEquals("\"abc\"", batch.getString(2));
+        }
+    }
+
+    @Test
+    public void shouldRejectInvalidThreshold() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new JSONBatchEscaper(ForkJoinPool.commonPool(), 0, JSONEscapePolicy.DEFAULT));
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            sb.append(sampleChars.charAt(random.nextInt(sampleChars.length())));
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * @(#) JSONEscapeBufferTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import io.jstuff.json.JSONEscapeBuffer;
+import io.jstuff.json.JSONEscapePolicy;
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONSurrogatePolicy;
+
+public class JSONEscapeBufferTest {
+
+    private static final String sampleChars = "abcdefgh \"\\/\n\t\u0001\u007Fé—<>& 😀𐀀";
+
+    @Test
+    public void shouldWriteEscapedStrings() throws IOException {
+        CountingWriter writer = new CountingWriter();
+        JSONEscapeBuffer buffer = new JSONEscapeBuffer().attach(writer);
+        buffer.append('{').appendString("name").append(':').appendString("Müller\n").append(',');
+        buffer.appendString("x", true).append(":").append("123", 1, 3).append('}');
+        assertEquals(0, writer.writes);
+        buffer.release();
+        assertEquals("{\"name\":\"M\\u00fcller\\n\",\"x\":23}", writer.toString());
+        assertEquals(1, writer.writes);
+        assertFalse(buffer.isAttached());
+    }
+
+    @Test
+    public void shouldProduceSameResultAsAppendString() throws IOException {
+        Random random = new Random(54321);
+        JSONEscapePolicy[] policies = { JSONEscapePolicy.DEFAULT, JSONEscapePolicy.INCLUDE_NON_ASCII,
+                JSONEscapePolicy.HTML_SAFE, JSONEscapePolicy.INCLUDE_NON_ASCII.withSurrogatePolicy(
+                        JSONSurrogatePolicy.REPLACE) };
+        for (int capacity : new int[] { JSONEscapeBuffer.MIN_CAPACITY, 17, 100, JSONEscapeBuffer.DEFAULT_CAPACITY }) {
+            JSONEscapeBuffer buffer = new JSONEscapeBuffer(capacity);
+            for (JSONEscapePolicy policy : policies) {
+                for (int i = 0; i < 200; i++) {
+                    String str = randomString(random, random.nextInt(i % 20 == 0 ? 500 : 40));
+                    StringBuilder sb = new StringBuilder();
+                    JSONFunctions.appendString(sb, str, policy);
+                    JSONFunctions.appendString(sb, new StringBuilder(str), policy);
+                    StringWriter writer = new StringWriter();
+                    buffer.attach(writer).appendString(str, policy).appendString(new StringBuilder(str), policy);
+                    buffer.release();
+                    assertEquals(sb.toString(), writer.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldWriteInBlocks() throws IOException {
+        CountingWriter writer = new CountingWriter();
+        JSONEscapeBuffer buffer = new JSONEscapeBuffer(64).attach(writer);
+        for (int i = 0; i < 100; i++)
+            buffer.appendString("line\n");
+        buffer.release();
+        assertEquals(800, writer.toString().length());
+        assertEquals(15, writer.writes);
+    }
+
+    @Test
+    public void shouldWriteLongStringDirectly() throws IOException {
+        CountingWriter writer = new CountingWriter();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+            sb.append("abcdefghij");
+        JSONEscapeBuffer buffer = new JSONEscapeBuffer(64).attach(writer);
+        buffer.appendString(sb.toString());
+        buffer.release();
+        assertEquals('"' + sb.toString() + '"', writer.toString());
+        assertEquals(3, writer.writes);
+    }
+
+    @Test
+    public void shouldFlushWriter() throws IOException {
+        CountingWriter writer = new CountingWriter();
+        JSONEscapeBuffer buffer = new JSONEscapeBuffer().attach(writer);
+        buffer.appendString("abc").flush();
+        assertEquals("\"abc\"", writer.toString());
+        assertEquals(1, writer.flushes);
+        assertTrue(buffer.isAttached());
+        buffer.release();
+    }
+
+    @Test
+    public void shouldReturnSameLocalBufferInSameThread() throws InterruptedException {
+        JSONEscapeBuffer buffer = JSONEscapeBuffer.local();
+        assertSame(buffer, JSONEscapeBuffer.local());
+        assertEquals(JSONEscapeBuffer.DEFAULT_CAPACITY, buffer.getCapacity());
+        JSONEscapeBuffer[] other = new JSONEscapeBuffer[1];
+        Thread thread = new Thread(() -> other[0] = JSONEscapeBuffer.local());
+        thread.start();
+        thread.join();
+        assertTrue(other[0] != null && other[0] != buffer);
+    }
+
+    @Test
+    public void shouldRejectIncorrectUsage() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> new JSONEscapeBuffer(JSONEscapeBuffer.MIN_CAPACITY - 1));
+        JSONEscapeBuffer buffer = new JSONEscapeBuffer();
+        assertThrows(IllegalStateException.class, () -> buffer.appendString("abc"));
+        buffer.release();
+        buffer.attach(new StringWriter());
+        assertThrows(IllegalStateException.class, () -> buffer.attach(new StringWriter()));
+        buffer.release();
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            sb.append(sampleChars.charAt(random.nextInt(sampleChars.length())));
+        return sb.toString();
+    }
+
+    private static class CountingWriter extends StringWriter {
+
+        int writes;
+        int flushes;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            writes++;
+            super.write(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            writes++;
+            super.write(str, off, len);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * @(#) JSONEscapePolicyTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.jstuff.json.JSONEscapePolicy;
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONSurrogatePolicy;
+import io.jstuff.json.JSONUTF8Functions;
+
+public class JSONEscapePolicyTest {
+
+    @Test
+    public void shouldMatchOriginalEscapingRules() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= 0xFFFF; i++) {
+            char ch = (char)i;
+            for (boolean includeNonASCII : new boolean[] { false, true }) {
+                sb.setLength(0);
+                JSONFunctions.appendChar(sb, ch, JSONEscapePolicy.of(includeNonASCII));
+                assertEquals(originalEscape(ch, includeNonASCII), sb.toString());
+            }
+        }
+    }
+
+    @Test
+    public void shouldCreatePolicyWithSurrogatePolicy() {
+        assertSame(JSONSurrogatePolicy.PASS, JSONEscapePolicy.DEFAULT.getSurrogatePolicy());
+        JSONEscapePolicy policy = JSONEscapePolicy.HTML_SAFE.withSurrogatePolicy(JSONSurrogatePolicy.REPLACE);
+        assertSame(JSONSurrogatePolicy.REPLACE, policy.getSurrogatePolicy());
+        assertTrue(policy.isHTMLSafe());
+        assertFalse(policy.isIncludeNonASCII());
+        assertSame(policy, policy.withSurrogatePolicy(JSONSurrogatePolicy.REPLACE));
+        assertSame(JSONEscapePolicy.DEFAULT, JSONEscapePolicy.DEFAULT.withSurrogatePolicy(JSONSurrogatePolicy.PASS));
+        policy = new JSONEscapePolicy(true, false, false, false, JSONSurrogatePolicy.REJECT);
+        assertSame(JSONSurrogatePolicy.REJECT, policy.getSurrogatePolicy());
+        assertFalse(policy.isEscaped('\uD800'));
+    }
+
+    @Test
+    public void shouldSelectPolicyFromFlag() {
+        assertSame(JSONEscapePolicy.DEFAULT, JSONEscapePolicy.of(false));
+        assertSame(JSONEscapePolicy.INCLUDE_NON_ASCII, JSONEscapePolicy.of(true));
+        assertFalse(JSONEscapePolicy.DEFAULT.isIncludeNonASCII());
+        assertTrue(JSONEscapePolicy.INCLUDE_NON_ASCII.isIncludeNonASCII());
+    }
+
+    @Test
+    public void shouldEscapeHTMLCharacters() {
+        JSONEscapePolicy policy = JSONEscapePolicy.HTML_SAFE;
+        assertTrue(policy.isHTMLSafe());
+        assertTrue(policy.isEscaped('<'));
+        assertFalse(JSONEscapePolicy.DEFAULT.isEscaped('<'));
+        assertEquals("\"\\u003c/script\\u003e \\u0026 \\u0027x\\u0027 \\u2014\"",
+                JSONFunctions.escapeString("</script> & 'x' \u2014", policy));
+    }
+
+    @Test
+    public void shouldEscapeJavaScriptLineSeparators() {
+        JSONEscapePolicy policy = JSONEscapePolicy.JAVASCRIPT_SAFE;
+        assertTrue(policy.isJavaScriptSafe());
+        assertTrue(policy.isEscaped('\u2028'));
+        assertFalse(JSONEscapePolicy.INCLUDE_NON_ASCII.isEscaped('\u2028'));
+        assertEquals("\"a\\u2028b\\u2029c \u2014\"", JSONFunctions.escapeString("a\u2028b\u2029c \u2014", policy));
+    }
+
+    @Test
+    public void shouldEscapeSlash() {
+        JSONEscapePolicy policy = JSONEscapePolicy.ESCAPE_SLASH;
+        assertTrue(policy.isEscapeSlash());
+        assertEquals("\"\\/path\\/to\\/file\"", JSONFunctions.escapeString("/path/to/file", policy));
+        assertEquals("\\/path", JSONFunctions.escapeStringUnquoted("/path", policy));
+        assertSame("path", JSONFunctions.escapeStringUnquoted("path", policy));
+    }
+
+    @Test
+    public void shouldCombineOptions() {
+        JSONEscapePolicy policy = new JSONEscapePolicy(true, true, true, true);
+        assertEquals("\"\\u003cb\\u003e\\/\u00e9\\u2028\"", JSONFunctions.escapeString("<b>/\u00e9\u2028", policy));
+    }
+
+    @Test
+    public void shouldApplyPolicyToIntConsumerOutput() {
+        StringBuilder sb = new StringBuilder();
+        JSONFunctions.outputString("<a href='/'>", JSONEscapePolicy.HTML_SAFE, ch -> sb.append((char)ch));
+        assertEquals("\"\\u003ca href=\\u0027/\\u0027\\u003e\"", sb.toString());
+    }
+
+    @Test
+    public void shouldApplyPolicyToUTF8Output() {
+        byte[] array = new byte[64];
+        int end = JSONUTF8Functions.appendString(array, 0, "<\u00e9\u2028/>", new JSONEscapePolicy(true, true, true,
+                true));
+        assertEquals("\"\\u003c\u00e9\\u2028\\/\\u003e\"", new String(array, 0, end, StandardCharsets.UTF_8));
+    }
+
+    private static String originalEscape(char ch, boolean includeNonASCII) {
+        if (ch == '"' || ch == '\\')
+            return "\\" + ch;
+        if (ch == '\b')
+            return "\\b";
+        if (ch == '\f')
+            return "\\f";
+        if (ch == '\n')
+            return "\\n";
+        if (ch == '\r')
+            return "\\r";
+        if (ch == '\t')
+            return "\\t";
+        if (ch < 0x20 || ch >= 0x7F && ch < 0xA0 || ch >= 0xA0 && !includeNonASCII)
+            return String.format("\\u%04x", (int)ch);
+        return String.valueOf(ch);
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * @(#) JSONEscapingWriterTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import io.jstuff.json.JSONEscapeException;
+import io.jstuff.json.JSONEscapePolicy;
+import io.jstuff.json.JSONEscapingWriter;
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONSurrogatePolicy;
+
+public class JSONEscapingWriterTest {
+
+    private static final String sampleChars = "abcdefgh \"\\/\n\t\u0001\u007Fé—<>& 😀\uD800\uDC00";
+
+    @Test
+    public void shouldWriteEscapedString() throws IOException {
+        StringWriter out = new StringWriter();
+        out.write('{');
+        try (JSONEscapingWriter writer = new JSONEscapingWriter(out)) {
+            writer.write("line 1\n");
+            writer.write('"');
+            writer.write(new char[] { 'x', 'é', 'y' }, 1, 1);
+        }
+        out.write('}');
+        assertEquals("{\"line 1\\n\\\"\\u00e9\"}", out.toString());
+    }
+
+    @Test
+    public void shouldWriteEmptyString() throws IOException {
+        StringWriter out = new StringWriter();
+        new JSONEscapingWriter(out).close();
+        assertEquals("\"\"", out.toString());
+    }
+
+    @Test
+    public void shouldCombineSurrogatePairSplitBetweenWrites() throws IOException {
+        JSONEscapePolicy policy = JSONEscapePolicy.INCLUDE_NON_ASCII.withSurrogatePolicy(JSONSurrogatePolicy.REPLACE);
+        StringWriter out = new StringWriter();
+        try (JSONEscapingWriter writer = new JSONEscapingWriter(out, policy)) {
+            writer.write("a\uD83D");
+            writer.write("\uDE00b\uD83D");
+            writer.write('\uDE01');
+            writer.write("\uD83D");
+            writer.write("c\uD83D");
+        }
+        assertEquals("\"a\uD83D\uDE00b\uD83D\uDE01\uFFFDc\uFFFD\"", out.toString());
+    }
+
+    @Test
+    public void shouldRejectLoneSurrogate() throws IOException {
+        JSONEscapePolicy policy = JSONEscapePolicy.INCLUDE_NON_ASCII.withSurrogatePolicy(JSONSurrogatePolicy.REJECT);
+        JSONEscapingWriter writer = new JSONEscapingWriter(new StringWriter(), policy);
+        writer.write("a\uD83D");
+        writer.write("\uDE00b");
+        JSONEscapeException e = assertThrows(JSONEscapeException.class, () -> writer.write("cd\uDE00"));
+        assertEquals(JSONFunctions.LONE_SURROGATE, e.getMessage());
+        assertEquals(2, e.getOffset());
+    }
+
+    @Test
+    public void shouldProduceSameResultAsAppendString() throws IOException {
+        Random random = new Random(98765);
+        JSONEscapePolicy[] policies = { JSONEscapePolicy.DEFAULT, JSONEscapePolicy.INCLUDE_NON_ASCII,
+                JSONEscapePolicy.DEFAULT.withSurrogatePolicy(JSONSurrogatePolicy.REPLACE) };
+        for (JSONEscapePolicy policy : policies) {
+            for (int i = 0; i < 100; i++) {
+                StringBuilder sb = new StringBuilder();
+                for (int j = random.nextInt(20000); j > 0; j--)
+                    sb.append(sampleChars.charAt(random.nextInt(sampleChars.length())));
+                String str = sb.toString();
+                StringWriter out = new StringWriter();
+                try (JSONEscapingWriter writer = new JSONEscapingWriter(out, policy)) {
+                    int offset = 0;
+                    while (offset < str.length()) {
+                        int n = Math.min(random.nextInt(100), str.length() - offset);
+                        writer.write(str, offset, n);
+                        offset += n;
+                    }
+                }
+                StringBuilder expected = new StringBuilder();
+                JSONFunctions.appendString(expected, str, policy);
+                assertEquals(expected.toString(), out.toString());
+            }
+        }
+    }
+
+    @Test
+    public void shouldRejectWriteAfterClose() throws IOException {
+        StringWriter out = new StringWriter();
+        JSONEscapingWriter writer = new JSONEscapingWriter(out);
+        writer.write("abc");
+        writer.close();
+        writer.close();
+        assertEquals("\"abc\"", out.toString());
+        assertThrows(IOException.class, () -> writer.write("x"));
+        assertThrows(IOException.class, writer::flush);
+    }
+
+}
@@ -26,6 +26,8 @@
 package io.jstuff.json.test;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
 import java.util.function.IntConsumer;
 
 import org.junit.Test;
@@ -35,7 +37,12 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
+import io.jstuff.json.BulkCharConsumer;
+import io.jstuff.json.JSONEscapeException;
+import io.jstuff.json.JSONEscapePolicy;
 import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONParseException;
+import io.jstuff.json.JSONSurrogatePolicy;
 import io.jstuff.text.TextMatcher;
 
 public class JSONFunctionsTest {
@@ -52,6 +59,23 @@ public class JSONFunctionsTest {
         assertFalse(JSONFunctions.isSpaceCharacter('\0'));
     }
 
+    @Test
+    public void shouldSkipSpaces() {
+        TextMatcher tm = new TextMatcher("{ \n\t \"a\":1}");
+        tm.setIndex(1);
+        JSONFunctions.skipSpaces(tm);
+        assertEquals(5, tm.getIndex());
+        assertEquals(1, tm.getStart());
+        JSONFunctions.skipSpaces(tm);
+        assertEquals(5, tm.getIndex());
+        assertEquals(5, tm.getStart());
+        tm = new TextMatcher("[1,  \r\n  ");
+        tm.setIndex(3);
+        JSONFunctions.skipSpaces(tm);
+        assertTrue(tm.isAtEnd());
+        assertEquals(3, tm.getStart());
+    }
+
     @Test
     public void shouldFormatStringCorrectly() throws IOException {
         StringBuilder sb = new StringBuilder();
@@ -71,6 +95,42 @@ public class JSONFunctionsTest {
         assertEquals("\"mdash \u2014 \\r\\n\"", sb.toString());
     }
 
+    @Test
+    public void shouldFormatStringCorrectlyToWriter() throws IOException {
+        StringWriter sw = new StringWriter();
+        JSONFunctions.appendString(sw, "mdash \u2014 \"quoted\"\r\n", false);
+        assertEquals("\"mdash \\u2014 \\\"quoted\\\"\\r\\n\"", sw.toString());
+    }
+
+    @Test
+    public void shouldAppendRunsOfUnescapedCharactersInSingleOperation() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int[] count = new int[1];
+        Appendable a = new Appendable() {
+            @Override
+            public Appendable append(CharSequence csq) {
+                count[0]++;
+                sb.append(csq);
+                return this;
+            }
+            @Override
+            public Appendable append(CharSequence csq, int start, int end) {
+                count[0]++;
+                sb.append(csq, start, end);
+                return this;
+            }
+            @Override
+            public Appendable append(char c) {
+                count[0]++;
+                sb.append(c);
+                return this;
+            }
+        };
+        JSONFunctions.appendString(a, "the quick brown fox\njumps over the lazy dog", false);
+        assertEquals("\"the quick brown fox\\njumps over the lazy dog\"", sb.toString());
+        assertEquals(5, count[0]);
+    }
+
     @Test
     public void shouldFormatStringCorrectlyUsingLambda() {
         StringBuilder sb = new StringBuilder();
@@ -108,6 +168,8 @@ public class JSONFunctionsTest {
         assertEquals("mdash \\u2014 \\r\\n", JSONFunctions.escapeStringUnquoted("mdash \u2014 \r\n", false));
         assertEquals("mdash \u2014 \\r\\n", JSONFunctions.escapeStringUnquoted("mdash \u2014 \r\n", true));
         assertEquals("\\t\\r\\n", JSONFunctions.escapeStringUnquoted("\t\r\n", false));
+        String nonASCII = "mdash \u2014";
+        assertSame(nonASCII, JSONFunctions.escapeStringUnquoted(nonASCII, true));
     }
 
     @Test
@@ -199,6 +261,154 @@ public class JSONFunctionsTest {
         assertTrue(tm.isAtEnd());
     }
 
+    @Test
+    public void shouldParseEscapedStringsOfVaryingLengths() {
+        Random random = new Random(12345);
+        char[] sample = { 'a', 'b', ' ', '"', '\\', '\n', '\u0001', '/', '\u00e9', '\u2014', '\uD83D', '\uDE00' };
+        for (int length = 0; length < 200; length++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < length; i++)
+                sb.append(sample[random.nextInt(sample.length)]);
+            String str = sb.toString();
+            for (boolean includeNonASCII : new boolean[] { false, true }) {
+                String json = JSONFunctions.escapeString(str, includeNonASCII) + ",";
+                TextMatcher tm = new TextMatcher(json);
+                tm.setIndex(1);
+                assertEquals(str, JSONFunctions.parseString(tm));
+                assertEquals(json.length() - 1, tm.getIndex());
+                assertEquals(json.length() - 2, tm.getStart());
+            }
+        }
+    }
+
+    @Test
+    public void shouldSkipStringReturningDecodedLength() {
+        String[] strings = { "", "simple", "tab\\tnewline\\n", "mdash \\u2014 \\uD83D\\ude00", "\\\"\\\\\\/" };
+        for (String str : strings) {
+            String text = "\"" + str + "\",";
+            TextMatcher tm = new TextMatcher(text);
+            tm.setIndex(1);
+            String parsed = JSONFunctions.parseString(tm);
+            tm.setIndex(1);
+            assertEquals(parsed.length(), JSONFunctions.skipString(tm));
+            assertEquals(text.length() - 1, tm.getIndex());
+            assertEquals(text.length() - 2, tm.getStart());
+            assertEquals(str.indexOf('\\') >= 0, parsed.length() < tm.getStart() - 1);
+        }
+    }
+
+    @Test
+    public void shouldValidateString() {
+        TextMatcher tm = new TextMatcher("\"tab\\t\\u2014\",");
+        tm.setIndex(1);
+        assertEquals(0, JSONFunctions.validateString(tm));
+        assertEquals(13, tm.getIndex());
+        assertEquals(12, tm.getStart());
+        TextMatcher tm2 = new TextMatcher("\"ab\\x\"");
+        tm2.setIndex(1);
+        assertEquals(JSONFunctions.ERROR_ILLEGAL_ESCAPE_SEQUENCE, JSONFunctions.validateString(tm2));
+        assertEquals(4, tm2.getIndex());
+    }
+
+    @Test
+    public void shouldReportSameErrorsFromSkipStringAsParseString() {
+        String[] strings = { "\"abc", "\"ab\\c\"", "\"ab\\uxxxx\"", "\"ab\\u12", "\"ab\u0001\"", "\"ab\\" };
+        for (String text : strings) {
+            TextMatcher tm1 = new TextMatcher(text);
+            tm1.setIndex(1);
+            IllegalArgumentException e1 = assertThrows(IllegalArgumentException.class,
+                    () -> JSONFunctions.parseString(tm1));
+            TextMatcher tm2 = new TextMatcher(text);
+            tm2.setIndex(1);
+            IllegalArgumentException e2 = assertThrows(IllegalArgumentException.class,
+                    () -> JSONFunctions.skipString(tm2));
+            assertEquals(e1.getMessage(), e2.getMessage());
+            assertEquals(tm1.getIndex(), tm2.getIndex());
+        }
+    }
+
+    @Test
+    public void shouldStoreStringInCharArray() {
+        char[] array = new char[40];
+        int end = JSONFunctions.appendString(array, 2, "Müller\t— \"x\"", false);
+        assertEquals("\"M\\u00fcller\\t\\u2014 \\\"x\\\"\"", new String(array, 2, end - 2));
+        end = JSONFunctions.appendString(array, 0, new StringBuilder("Müller\n"), JSONEscapePolicy.INCLUDE_NON_ASCII);
+        assertEquals("\"Müller\\n\"", new String(array, 0, end));
+        assertThrows(IndexOutOfBoundsException.class, () -> JSONFunctions.appendString(array, 35, "abcdef", true));
+    }
+
+    @Test
+    public void shouldCalculateEscapedLength() {
+        String[] strings = { "", "plain", "tab\there\n", "\"quoted\" \\", "Müller — 😀", "a<b>&c/", "\u0001\u007F",
+                "\u2028\uD800" };
+        JSONEscapePolicy[] policies = { JSONEscapePolicy.DEFAULT, JSONEscapePolicy.INCLUDE_NON_ASCII,
+                JSONEscapePolicy.HTML_SAFE, JSONEscapePolicy.JAVASCRIPT_SAFE, JSONEscapePolicy.ESCAPE_SLASH };
+        for (String str : strings) {
+            for (JSONEscapePolicy policy : policies) {
+                assertEquals(JSONFunctions.escapeStringUnquoted(str, policy).length(),
+                        JSONFunctions.escapedLength(str, policy));
+            }
+            assertEquals(JSONFunctions.escapeStringUnquoted(str, true).length(),
+                    JSONFunctions.escapedLength(str, true));
+            assertEquals(JSONFunctions.escapeStringUnquoted(str, false).length(),
+                    JSONFunctions.escapedLength(str, false));
+        }
+    }
+
+    @Test
+    public void shouldCalculateDecodedLengthWithoutMovingIndex() {
+        TextMatcher tm = new TextMatcher("[\"tab\\t\\u2014\"]");
+        tm.setIndex(2);
+        tm.setStart(1);
+        assertEquals(5, JSONFunctions.decodedLength(tm));
+        assertEquals(2, tm.getIndex());
+        assertEquals(1, tm.getStart());
+        assertEquals("tab\t\u2014", JSONFunctions.parseString(tm));
+        TextMatcher tm2 = new TextMatcher("\"ab\\x\"");
+        tm2.setIndex(1);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> JSONFunctions.decodedLength(tm2));
+        assertEquals(JSONFunctions.ILLEGAL_ESCAPE_SEQUENCE, e.getMessage());
+    }
+
+    @Test
+    public void shouldMatchStringAgainstTarget() {
+        String text = "\"name\":\"na\\u006De\",\"nam\",\"names\",\"\\\"q\\\"\"";
+        TextMatcher tm = new TextMatcher(text);
+        tm.setIndex(1);
+        assertTrue(JSONFunctions.matchString(tm, "name"));
+        assertEquals(6, tm.getIndex());
+        tm.setIndex(8);
+        assertTrue(JSONFunctions.matchString(tm, "name"));
+        assertEquals(18, tm.getIndex());
+        tm.setIndex(20);
+        assertFalse(JSONFunctions.matchString(tm, "name"));
+        assertEquals(24, tm.getIndex());
+        tm.setIndex(26);
+        assertFalse(JSONFunctions.matchString(tm, "name"));
+        assertEquals(32, tm.getIndex());
+        tm.setIndex(34);
+        assertTrue(JSONFunctions.matchString(tm, "\"q\""));
+        assertTrue(tm.isAtEnd());
+    }
+
+    @Test
+    public void shouldValidateRemainderOfStringAfterMismatch() {
+        TextMatcher tm = new TextMatcher("\"abc\\x\"");
+        tm.setIndex(1);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> JSONFunctions.matchString(tm, "xyz"));
+        assertEquals(JSONFunctions.ILLEGAL_ESCAPE_SEQUENCE, e.getMessage());
+        TextMatcher tm2 = new TextMatcher("\"abc");
+        tm2.setIndex(1);
+        e = assertThrows(IllegalArgumentException.class, () -> JSONFunctions.matchString(tm2, "abc"));
+        assertEquals(JSONFunctions.UNTERMINATED_STRING, e.getMessage());
+        TextMatcher tm3 = new TextMatcher("\"ab\\u\uFF11234\"");
+        tm3.setIndex(1);
+        e = assertThrows(IllegalArgumentException.class, () -> JSONFunctions.matchString(tm3, "ab\u1234"));
+        assertEquals(JSONFunctions.ILLEGAL_UNICODE_SEQUENCE, e.getMessage());
+    }
+
     @Test
     public void shouldThrowExceptionOnMissingClosingQuote() {
         TextMatcher tm = new TextMatcher("\"abc");
@@ -223,6 +433,11 @@ public class JSONFunctionsTest {
         tm.setIndex(1);
         IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> JSONFunctions.parseString(tm));
         assertEquals("Illegal Unicode sequence in JSON string", e.getMessage());
+        assertEquals(5, tm.getIndex());
+        TextMatcher tm2 = new TextMatcher("\"a\\nb\\u12x4\"");
+        tm2.setIndex(1);
+        assertThrows(IllegalArgumentException.class, () -> JSONFunctions.parseString(tm2));
+        assertEquals(7, tm2.getIndex());
     }
 
     @Test
@@ -234,4 +449,91 @@ public class JSONFunctionsTest {
         assertEquals("Illegal character in JSON string", e.getMessage());
     }
 
+    @Test
+    public void shouldReplaceLoneSurrogatesWhenEscaping() throws IOException {
+        String str = "a\uD83D\uDE00b\uD800c\uDC00d\uD83D";
+        JSONEscapePolicy policy = JSONEscapePolicy.DEFAULT.withSurrogatePolicy(JSONSurrogatePolicy.REPLACE);
+        checkEscaped("\"a\\ud83d\\ude00b\\ufffdc\\ufffdd\\ufffd\"", str, policy);
+        policy = JSONEscapePolicy.INCLUDE_NON_ASCII.withSurrogatePolicy(JSONSurrogatePolicy.REPLACE);
+        checkEscaped("\"a\uD83D\uDE00b\uFFFDc\uFFFDd\uFFFD\"", str, policy);
+        checkEscaped("\"\uD83D\uDE00\"", "\uD83D\uDE00", policy);
+        assertEquals("\uFFFDx", JSONFunctions.escapeStringUnquoted("\uDC00x", policy));
+    }
+
+    @Test
+    public void shouldRejectLoneSurrogatesWhenEscaping() throws IOException {
+        JSONEscapePolicy policy = JSONEscapePolicy.INCLUDE_NON_ASCII.withSurrogatePolicy(JSONSurrogatePolicy.REJECT);
+        checkEscaped("\"\uD83D\uDE00!\"", "\uD83D\uDE00!", policy);
+        JSONEscapeException e = assertThrows(JSONEscapeException.class,
+                () -> JSONFunctions.escapeString("abc\uDE00", policy));
+        assertEquals(JSONFunctions.LONE_SURROGATE, e.getMessage());
+        assertEquals(3, e.getOffset());
+        e = assertThrows(JSONEscapeException.class, () -> JSONFunctions.escapedLength("\uD83D", policy));
+        assertEquals(0, e.getOffset());
+        e = assertThrows(JSONEscapeException.class, () -> JSONFunctions.outputString("x\uD83Dx", policy, ch -> {}));
+        assertEquals(1, e.getOffset());
+    }
+
+    @Test
+    public void shouldPassLoneSurrogatesByDefault() throws IOException {
+        checkEscaped("\"a\uD800b\"", "a\uD800b", JSONEscapePolicy.INCLUDE_NON_ASCII);
+        checkEscaped("\"a\\ud800b\"", "a\uD800b", JSONEscapePolicy.DEFAULT);
+    }
+
+    @Test
+    public void shouldParseStringApplyingSurrogatePolicy() {
+        checkParse("a\uD83D\uDE00b", "\"a\\uD83D\\uDE00b\"", JSONSurrogatePolicy.REJECT);
+        checkParse("a\uD83D\uDE00b", "\"a\uD83D\uDE00b\"", JSONSurrogatePolicy.REJECT);
+        checkParse("\uD83D\uDE00", "\"\uD83D" + "\\uDE00\"", JSONSurrogatePolicy.REJECT);
+        checkParse("\uD83D\uDE00\n", "\"\\uD83D\uDE00\\n\"", JSONSurrogatePolicy.REJECT);
+        checkParse("a\uFFFDb", "\"a\\uD800b\"", JSONSurrogatePolicy.REPLACE);
+        checkParse("ab\uFFFD", "\"ab\uDC00\"", JSONSurrogatePolicy.REPLACE);
+        checkParse("\uFFFD", "\"\\uD800\"", JSONSurrogatePolicy.REPLACE);
+        checkParse("\uFFFDA\uFFFD", "\"\\uD800\\u0041\uD800\"", JSONSurrogatePolicy.REPLACE);
+        checkParse("a\uD800b", "\"a\\uD800b\"", JSONSurrogatePolicy.PASS);
+        checkParse("plain", "\"plain\"", JSONSurrogatePolicy.REPLACE);
+    }
+
+    @Test
+    public void shouldReportErrorsWhenParsingWithSurrogatePolicy() {
+        checkParseError("\"a\\uD800b\"", JSONSurrogatePolicy.REJECT, JSONFunctions.ERROR_LONE_SURROGATE, 2);
+        checkParseError("\"ab\uDC00\"", JSONSurrogatePolicy.REJECT, JSONFunctions.ERROR_LONE_SURROGATE, 3);
+        checkParseError("\"\uD800" + "\\u0041\"", JSONSurrogatePolicy.REJECT, JSONFunctions.ERROR_LONE_SURROGATE, 1);
+        checkParseError("\"a\\x\"", JSONSurrogatePolicy.REPLACE, JSONFunctions.ERROR_ILLEGAL_ESCAPE_SEQUENCE, 3);
+        checkParseError("\"a\\u00\"", JSONSurrogatePolicy.REPLACE, JSONFunctions.ERROR_ILLEGAL_UNICODE_SEQUENCE, 4);
+        checkParseError("\"a\u0001\"", JSONSurrogatePolicy.REPLACE, JSONFunctions.ERROR_ILLEGAL_CHAR, 2);
+        checkParseError("\"abc", JSONSurrogatePolicy.REPLACE, JSONFunctions.ERROR_UNTERMINATED_STRING, 4);
+        checkParseError("\"abc\\", JSONSurrogatePolicy.REPLACE, JSONFunctions.ERROR_UNTERMINATED_STRING, 5);
+    }
+
+    private static void checkEscaped(String expected, String str, JSONEscapePolicy policy) throws IOException {
+        assertEquals(expected, JSONFunctions.escapeString(str, policy));
+        assertEquals(expected.length() - 2, JSONFunctions.escapedLength(str, policy));
+        char[] array = new char[expected.length()];
+        assertEquals(array.length, JSONFunctions.appendString(array, 0, str, policy));
+        assertEquals(expected, new String(array));
+        StringBuilder sb = new StringBuilder();
+        JSONFunctions.outputString(str, policy, ch -> sb.append((char)ch));
+        assertEquals(expected, sb.toString());
+        sb.setLength(0);
+        JSONFunctions.outputString(new StringBuilder(str), policy, BulkCharConsumer.of(sb));
+        assertEquals(expected, sb.toString());
+    }
+
+    private static void checkParse(String expected, String json, JSONSurrogatePolicy policy) {
+        TextMatcher tm = new TextMatcher(json + ",");
+        tm.setIndex(1);
+        assertEquals(expected, JSONFunctions.parseString(tm, policy));
+        assertEquals(json.length(), tm.getIndex());
+        assertEquals(json.length() - 1, tm.getStart());
+    }
+
+    private static void checkParseError(String json, JSONSurrogatePolicy policy, int errorCode, int offset) {
+        TextMatcher tm = new TextMatcher(json);
+        tm.setIndex(1);
+        JSONParseException e = assertThrows(JSONParseException.class, () -> JSONFunctions.parseString(tm, policy));
+        assertEquals(errorCode, e.getErrorCode());
+        assertEquals(offset, e.getOffset());
+    }
+
 }
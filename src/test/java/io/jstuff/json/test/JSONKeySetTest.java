@@ -0,0 +1,123 @@
+/*
+ * @(#) JSONKeySetTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONKeySet;
+import io.jstuff.text.TextMatcher;
+
+public class JSONKeySetTest {
+
+    private static final JSONKeySet keySet = new JSONKeySet("id", "name", "names", "", "nameless", "é", "😀");
+
+    @Test
+    public void shouldMatchKeys() {
+        assertEquals(0, match("id"));
+        assertEquals(1, match("name"));
+        assertEquals(2, match("names"));
+        assertEquals(3, match(""));
+        assertEquals(4, match("nameless"));
+        assertEquals(5, match("é"));
+        assertEquals(6, match("😀"));
+    }
+
+    @Test
+    public void shouldMatchEscapedKeys() {
+        assertEquals(0, match("\\u0069d"));
+        assertEquals(1, match("nam\\u0065"));
+        assertEquals(5, match("\\u00E9"));
+        assertEquals(6, match("\\uD83D\\uDE00"));
+    }
+
+    @Test
+    public void shouldNotMatchOtherStrings() {
+        assertEquals(-1, match("i"));
+        assertEquals(-1, match("nam"));
+        assertEquals(-1, match("namesake"));
+        assertEquals(-1, match("ID"));
+        assertEquals(-1, match("x\\n"));
+    }
+
+    @Test
+    public void shouldLeaveIndexAfterClosingQuote() {
+        String text = "{\"nam\\u0065\":1,\"unknown\\t\":2,\"id\":3}";
+        TextMatcher tm = new TextMatcher(text);
+        int[] expected = { 1, -1, 0 };
+        for (int i = 0; i < expected.length; i++) {
+            tm.skipTo('"');
+            tm.match('"');
+            assertEquals(expected[i], keySet.match(tm));
+            assertEquals(':', text.charAt(tm.getIndex()));
+            assertEquals('"', text.charAt(tm.getStart()));
+        }
+    }
+
+    @Test
+    public void shouldValidateUnmatchedString() {
+        TextMatcher tm = new TextMatcher("\"nax\\q\"");
+        tm.setIndex(1);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> keySet.match(tm));
+        assertEquals(JSONFunctions.ILLEGAL_ESCAPE_SEQUENCE, e.getMessage());
+        TextMatcher tm2 = new TextMatcher("\"name");
+        tm2.setIndex(1);
+        e = assertThrows(IllegalArgumentException.class, () -> keySet.match(tm2));
+        assertEquals(JSONFunctions.UNTERMINATED_STRING, e.getMessage());
+    }
+
+    @Test
+    public void shouldCreateKeySetFromList() {
+        JSONKeySet set = new JSONKeySet(Arrays.asList("b", "a"));
+        assertEquals(2, set.size());
+        assertEquals("a", set.getKey(1));
+        assertEquals(1, match(set, "a"));
+        assertEquals(0, match(set, "b"));
+    }
+
+    @Test
+    public void shouldRejectDuplicateKeys() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new JSONKeySet("a", "b", "a"));
+        assertEquals("Duplicate key: a", e.getMessage());
+    }
+
+    private static int match(String content) {
+        return match(keySet, content);
+    }
+
+    private static int match(JSONKeySet set, String content) {
+        TextMatcher tm = new TextMatcher("\"" + content + "\"");
+        tm.setIndex(1);
+        int result = set.match(tm);
+        assertEquals(content.length() + 2, tm.getIndex());
+        return result;
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * @(#) JSONMetricsTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import io.jstuff.json.JSONBatchEscaper;
+import io.jstuff.json.JSONEscapeBuffer;
+import io.jstuff.json.JSONEscapingWriter;
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONMetrics;
+import io.jstuff.json.JSONStringCache;
+import io.jstuff.json.JSONUTF8Functions;
+import io.jstuff.text.TextMatcher;
+
+public class JSONMetricsTest {
+
+    @Test
+    public void shouldCountEscapeOperations() {
+        assumeTrue(JSONMetrics.ENABLED);
+        JSONMetrics.reset();
+        JSONFunctions.escapeString("abc", false);
+        JSONFunctions.escapeStringUnquoted("plain");
+        JSONFunctions.escapeStringUnquoted("tab\there");
+        JSONMetrics.Snapshot snapshot = JSONMetrics.snapshot();
+        assertEquals(1, snapshot.getCount(JSONMetrics.Counter.ESCAPE_STRING));
+        assertEquals(2, snapshot.getCount(JSONMetrics.Counter.ESCAPE_UNQUOTED));
+        assertEquals(1, snapshot.getCount(JSONMetrics.Counter.ESCAPE_UNQUOTED_UNCHANGED));
+        long[] histogram = snapshot.getHistogram(JSONMetrics.Histogram.ESCAPE_LENGTH);
+        assertEquals(1, histogram[2]);
+        assertEquals(1, histogram[3]);
+        assertEquals(1, histogram[4]);
+    }
+
+    @Test
+    public void shouldCountEscapeOperationsForAllOutputFunctions() throws IOException {
+        assumeTrue(JSONMetrics.ENABLED);
+        JSONMetrics.reset();
+        JSONFunctions.appendString(new StringBuilder(), "a", false);
+        JSONFunctions.appendString(new char[8], 0, "ab", false);
+        JSONFunctions.outputString("abc", false, ch -> {});
+        JSONUTF8Functions.appendString(new byte[8], 0, "abcd", false);
+        JSONUTF8Functions.appendString(ByteBuffer.allocate(8), "abcd", false);
+        JSONUTF8Functions.writeString(new ByteArrayOutputStream(), "abcd", false);
+        StringWriter sw = new StringWriter();
+        JSONEscapeBuffer buffer = new JSONEscapeBuffer().attach(sw);
+        buffer.appendString("abcd");
+        buffer.release();
+        try (Writer writer = new JSONEscapingWriter(sw)) {
+            writer.write("abcd");
+            writer.write("efgh");
+        }
+        new JSONBatchEscaper().escape("", "abcdefgh");
+        JSONMetrics.Snapshot snapshot = JSONMetrics.snapshot();
+        assertEquals(10, snapshot.getCount(JSONMetrics.Counter.ESCAPE_STRING));
+        long[] histogram = snapshot.getHistogram(JSONMetrics.Histogram.ESCAPE_LENGTH);
+        assertEquals(1, histogram[0]);
+        assertEquals(1, histogram[1]);
+        assertEquals(2, histogram[2]);
+        assertEquals(4, histogram[3]);
+        assertEquals(2, histogram[4]);
+    }
+
+    @Test
+    public void shouldCountParseOperations() {
+        assumeTrue(JSONMetrics.ENABLED);
+        JSONMetrics.reset();
+        JSONFunctions.parseString(matcher("\"abc\""));
+        JSONFunctions.parseString(matcher("\"a\\nb\""));
+        JSONFunctions.parseString(matcher("\"\""), new JSONStringCache());
+        JSONUTF8Functions.parseString(ByteBuffer.wrap("x\\\"y\"".getBytes(StandardCharsets.UTF_8), 1, 4));
+        JSONMetrics.Snapshot snapshot = JSONMetrics.snapshot();
+        assertEquals(4, snapshot.getCount(JSONMetrics.Counter.PARSE_STRING));
+        assertEquals(2, snapshot.getCount(JSONMetrics.Counter.PARSE_DECODED));
+        long[] histogram = snapshot.getHistogram(JSONMetrics.Histogram.PARSE_LENGTH);
+        assertEquals(1, histogram[0]);
+        assertEquals(3, histogram[2]);
+        assertEquals("ESCAPE_STRING=0, ESCAPE_UNQUOTED=0, ESCAPE_UNQUOTED_UNCHANGED=0, PARSE_STRING=4, " +
+                "PARSE_DECODED=2, ESCAPE_LENGTH={}, PARSE_LENGTH={0=1, 2=3}", snapshot.toString());
+        JSONMetrics.reset();
+        assertArrayEquals(new long[JSONMetrics.HISTOGRAM_BUCKETS],
+                JSONMetrics.snapshot().getHistogram(JSONMetrics.Histogram.PARSE_LENGTH));
+    }
+
+    @Test
+    public void shouldCalculateHistogramBuckets() {
+        assertEquals(0, JSONMetrics.bucket(0));
+        assertEquals(1, JSONMetrics.bucket(1));
+        assertEquals(2, JSONMetrics.bucket(3));
+        assertEquals(3, JSONMetrics.bucket(4));
+        assertEquals(31, JSONMetrics.bucket(Integer.MAX_VALUE));
+        assertEquals(0, JSONMetrics.bucketLowerBound(0));
+        assertEquals(4, JSONMetrics.bucketLowerBound(3));
+    }
+
+    private static TextMatcher matcher(String text) {
+        TextMatcher tm = new TextMatcher(text);
+        tm.setIndex(1);
+        return tm;
+    }
+
+}
@@ -0,0 +1,271 @@
+/*
+ * @(#) JSONNumberFunctionsTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONNumberFunctions;
+import io.jstuff.json.JSONParseException;
+import io.jstuff.text.TextMatcher;
+
+public class JSONNumberFunctionsTest {
+
+    @Test
+    public void shouldParseInt() {
+        assertEquals(0, JSONNumberFunctions.parseInt(new TextMatcher("0")));
+        assertEquals(123, JSONNumberFunctions.parseInt(new TextMatcher("123")));
+        assertEquals(-5, JSONNumberFunctions.parseInt(new TextMatcher("-5")));
+        assertEquals(Integer.MAX_VALUE, JSONNumberFunctions.parseInt(new TextMatcher("2147483647")));
+        assertEquals(Integer.MIN_VALUE, JSONNumberFunctions.parseInt(new TextMatcher("-2147483648")));
+    }
+
+    @Test
+    public void shouldSetIndexAfterParsingNumber() {
+        TextMatcher tm = new TextMatcher("[12345,-6]");
+        tm.setIndex(1);
+        assertEquals(12345, JSONNumberFunctions.parseInt(tm));
+        assertEquals(1, tm.getStart());
+        assertEquals(6, tm.getIndex());
+        assertEquals("12345", tm.getResult());
+        tm.setIndex(7);
+        assertEquals(-6L, JSONNumberFunctions.parseLong(tm));
+        assertEquals(7, tm.getStart());
+        assertEquals(9, tm.getIndex());
+        tm = new TextMatcher("[123.5e2]");
+        tm.setIndex(1);
+        assertEquals(12350.0, JSONNumberFunctions.parseDouble(tm), 0.0);
+        assertEquals(1, tm.getStart());
+        assertEquals(8, tm.getIndex());
+    }
+
+    @Test
+    public void shouldParseLong() {
+        assertEquals(1234567890123L, JSONNumberFunctions.parseLong(new TextMatcher("1234567890123")));
+        assertEquals(Long.MAX_VALUE, JSONNumberFunctions.parseLong(new TextMatcher("9223372036854775807")));
+        assertEquals(Long.MIN_VALUE, JSONNumberFunctions.parseLong(new TextMatcher("-9223372036854775808")));
+    }
+
+    @Test
+    public void shouldRejectIntegerOutOfRange() {
+        checkIntError("2147483648", JSONFunctions.ERROR_NUMBER_OUT_OF_RANGE, 0);
+        checkIntError("-2147483649", JSONFunctions.ERROR_NUMBER_OUT_OF_RANGE, 0);
+        checkIntError("99999999999", JSONFunctions.ERROR_NUMBER_OUT_OF_RANGE, 0);
+        JSONParseException e = assertThrows(JSONParseException.class,
+                () -> JSONNumberFunctions.parseLong(new TextMatcher("9223372036854775808")));
+        assertEquals(JSONFunctions.ERROR_NUMBER_OUT_OF_RANGE, e.getErrorCode());
+        assertEquals(JSONFunctions.NUMBER_OUT_OF_RANGE, e.getMessage());
+    }
+
+    @Test
+    public void shouldRejectIntegerWithFractionOrExponent() {
+        checkIntError("1.5", JSONFunctions.ERROR_NUMBER_NOT_INTEGER, 1);
+        checkIntError("-12e3", JSONFunctions.ERROR_NUMBER_NOT_INTEGER, 3);
+        checkIntError("0E1", JSONFunctions.ERROR_NUMBER_NOT_INTEGER, 1);
+    }
+
+    @Test
+    public void shouldRejectIllegalNumbers() {
+        checkIntError("01", JSONFunctions.ERROR_ILLEGAL_NUMBER, 1);
+        checkIntError("-", JSONFunctions.ERROR_ILLEGAL_NUMBER, 1);
+        checkIntError("+1", JSONFunctions.ERROR_ILLEGAL_NUMBER, 0);
+        checkIntError("-a", JSONFunctions.ERROR_ILLEGAL_NUMBER, 1);
+        checkDoubleError("1.", JSONFunctions.ERROR_ILLEGAL_NUMBER, 2);
+        checkDoubleError("1.e5", JSONFunctions.ERROR_ILLEGAL_NUMBER, 2);
+        checkDoubleError(".5", JSONFunctions.ERROR_ILLEGAL_NUMBER, 0);
+        checkDoubleError("1e", JSONFunctions.ERROR_ILLEGAL_NUMBER, 2);
+        checkDoubleError("1e+", JSONFunctions.ERROR_ILLEGAL_NUMBER, 3);
+        checkDoubleError("-0012", JSONFunctions.ERROR_ILLEGAL_NUMBER, 2);
+        checkDoubleError("1e400", JSONFunctions.ERROR_NUMBER_OUT_OF_RANGE, 0);
+        JSONParseException e = assertThrows(JSONParseException.class,
+                () -> JSONNumberFunctions.parseDouble(new TextMatcher("1.x")));
+        assertEquals(JSONFunctions.ILLEGAL_NUMBER, e.getMessage());
+    }
+
+    @Test
+    public void shouldParseDouble() {
+        checkDouble("0");
+        checkDouble("-0");
+        checkDouble("0.0e10");
+        checkDouble("1.5");
+        checkDouble("-273.15");
+        checkDouble("6.02214076e23");
+        checkDouble("1E+2");
+        checkDouble("0.1");
+        checkDouble("9007199254740993");
+        checkDouble("1e23");
+        checkDouble("4.9e-324");
+        checkDouble("2.4703282292062328e-324");
+        checkDouble("1e-400");
+        checkDouble("1.7976931348623157e308");
+        checkDouble("2.2250738585072011e-308");
+        checkDouble("123456789012345678901234567890");
+        checkDouble("1.00000000000000011102230246251565404236316680908203125");
+        checkDouble("1.00000000000000011102230246251565404236316680908203124");
+        checkDouble("0.000000000000000000000000000000000000000000001234567890123456789012");
+    }
+
+    @Test
+    public void shouldParseRandomDoubles() {
+        Random random = new Random(12345);
+        for (int i = 0; i < 10000; i++) {
+            StringBuilder sb = new StringBuilder();
+            if (random.nextBoolean())
+                sb.append('-');
+            sb.append((char)('1' + random.nextInt(9)));
+            for (int j = random.nextInt(25); j > 0; j--)
+                sb.append((char)('0' + random.nextInt(10)));
+            if (random.nextBoolean()) {
+                sb.append('.');
+                for (int j = random.nextInt(20); j >= 0; j--)
+                    sb.append((char)('0' + random.nextInt(10)));
+            }
+            if (random.nextBoolean())
+                sb.append('e').append(random.nextInt(560) - 280);
+            checkDouble(sb.toString());
+        }
+    }
+
+    @Test
+    public void shouldFormatDouble() throws IOException {
+        checkFormat("0.0", 0.0);
+        checkFormat("-0.0", -0.0);
+        checkFormat("1.0", 1.0);
+        checkFormat("-1.5", -1.5);
+        checkFormat("100.0", 100.0);
+        checkFormat("123.456", 123.456);
+        checkFormat("1234567.0", 1234567.0);
+        checkFormat("1.0E7", 1.0e7);
+        checkFormat("0.001", 0.001);
+        checkFormat("1.0E-4", 1.0e-4);
+        checkFormat("0.1", 0.1);
+        checkFormat("0.30000000000000004", 0.1 + 0.2);
+        checkFormat("1.0E22", 1.0e22);
+        checkFormat("2.0E23", 2.0e23);
+        checkFormat("9.007199254740992E15", 9007199254740992.0);
+        checkFormat("4.9E-324", Double.MIN_VALUE);
+        checkFormat("2.2250738585072014E-308", Double.MIN_NORMAL);
+        checkFormat("1.7976931348623157E308", Double.MAX_VALUE);
+    }
+
+    @Test
+    public void shouldFormatFloat() throws IOException {
+        checkFormat("0.0", 0.0F);
+        checkFormat("0.3", 0.3F);
+        checkFormat("-2.5", -2.5F);
+        checkFormat("1.0E10", 1.0e10F);
+        checkFormat("1.4E-45", Float.MIN_VALUE);
+        checkFormat("3.4028235E38", Float.MAX_VALUE);
+        checkFormat("1.1754944E-38", Float.MIN_NORMAL);
+    }
+
+    @Test
+    public void shouldFormatRandomDoublesForRoundTrip() throws IOException {
+        Random random = new Random(54321);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            double d = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(d) || Double.isInfinite(d))
+                continue;
+            sb.setLength(0);
+            JSONNumberFunctions.appendDouble(sb, d);
+            String s = sb.toString();
+            assertEquals(d, Double.parseDouble(s), 0.0);
+            assertTrue(s.length() <= Double.toString(d).length());
+            assertEquals(d, JSONNumberFunctions.parseDouble(new TextMatcher(s)), 0.0);
+            float f = Float.intBitsToFloat(random.nextInt());
+            if (Float.isNaN(f) || Float.isInfinite(f))
+                continue;
+            sb.setLength(0);
+            JSONNumberFunctions.appendFloat(sb, f);
+            assertEquals(f, Float.parseFloat(sb.toString()), 0.0F);
+            assertTrue(sb.length() <= Float.toString(f).length());
+        }
+    }
+
+    @Test
+    public void shouldOutputDoubleToIntConsumer() {
+        StringBuilder sb = new StringBuilder();
+        JSONNumberFunctions.outputDouble(-1.25e-7, ch -> sb.append((char)ch));
+        assertEquals("-1.25E-7", sb.toString());
+        sb.setLength(0);
+        JSONNumberFunctions.outputFloat(65536.0F, ch -> sb.append((char)ch));
+        assertEquals("65536.0", sb.toString());
+    }
+
+    @Test
+    public void shouldRejectNonFiniteValues() {
+        StringBuilder sb = new StringBuilder();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> JSONNumberFunctions.appendDouble(sb, Double.NaN));
+        assertEquals(JSONNumberFunctions.NOT_FINITE, e.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> JSONNumberFunctions.outputDouble(Double.NEGATIVE_INFINITY, ch -> {}));
+        assertThrows(IllegalArgumentException.class, () -> JSONNumberFunctions.appendFloat(sb, Float.NaN));
+        assertEquals(0, sb.length());
+    }
+
+    private static void checkDouble(String s) {
+        TextMatcher tm = new TextMatcher(s);
+        double expected = Double.parseDouble(s);
+        assertEquals(Double.doubleToRawLongBits(expected),
+                Double.doubleToRawLongBits(JSONNumberFunctions.parseDouble(tm)));
+        assertEquals(s.length(), tm.getIndex());
+    }
+
+    private static void checkFormat(String expected, double d) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        JSONNumberFunctions.appendDouble(sb, d);
+        assertEquals(expected, sb.toString());
+    }
+
+    private static void checkFormat(String expected, float f) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        JSONNumberFunctions.appendFloat(sb, f);
+        assertEquals(expected, sb.toString());
+    }
+
+    private static void checkIntError(String s, int errorCode, int offset) {
+        JSONParseException e = assertThrows(JSONParseException.class,
+                () -> JSONNumberFunctions.parseInt(new TextMatcher(s)));
+        assertEquals(errorCode, e.getErrorCode());
+        assertEquals(offset, e.getOffset());
+    }
+
+    private static void checkDoubleError(String s, int errorCode, int offset) {
+        JSONParseException e = assertThrows(JSONParseException.class,
+                () -> JSONNumberFunctions.parseDouble(new TextMatcher(s)));
+        assertEquals(errorCode, e.getErrorCode());
+        assertEquals(offset, e.getOffset());
+    }
+
+}
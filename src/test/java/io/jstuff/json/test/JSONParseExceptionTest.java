@@ -0,0 +1,139 @@
+/*
+ * @(#) JSONParseExceptionTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONParseException;
+import io.jstuff.json.JSONStringDecoder;
+import io.jstuff.json.JSONUTF8Functions;
+import io.jstuff.text.TextMatcher;
+
+public class JSONParseExceptionTest {
+
+    @Test
+    public void shouldReportErrorCodeAndOffset() {
+        checkError("\"abc", JSONFunctions.ERROR_UNTERMINATED_STRING, 4, JSONFunctions.UNTERMINATED_STRING);
+        checkError("\"ab\u0001\"", JSONFunctions.ERROR_ILLEGAL_CHAR, 3, JSONFunctions.ILLEGAL_CHAR);
+        checkError("\"ab\\uxxxx\"", JSONFunctions.ERROR_ILLEGAL_UNICODE_SEQUENCE, 5,
+                JSONFunctions.ILLEGAL_UNICODE_SEQUENCE);
+        checkError("\"a\\u00\"", JSONFunctions.ERROR_ILLEGAL_UNICODE_SEQUENCE, 4, JSONFunctions.ILLEGAL_UNICODE_SEQUENCE);
+        checkError("\"ab\\c\"", JSONFunctions.ERROR_ILLEGAL_ESCAPE_SEQUENCE, 4, JSONFunctions.ILLEGAL_ESCAPE_SEQUENCE);
+        checkError("\"ab\\t\\c\"", JSONFunctions.ERROR_ILLEGAL_ESCAPE_SEQUENCE, 6,
+                JSONFunctions.ILLEGAL_ESCAPE_SEQUENCE);
+        checkError("\"ab\\", JSONFunctions.ERROR_UNTERMINATED_STRING, 4, JSONFunctions.UNTERMINATED_STRING);
+    }
+
+    @Test
+    public void shouldNotCaptureStackTrace() {
+        TextMatcher tm = new TextMatcher("\"abc");
+        tm.setIndex(1);
+        JSONParseException e = assertThrows(JSONParseException.class, () -> JSONFunctions.parseString(tm));
+        assertEquals(0, e.getStackTrace().length);
+    }
+
+    @Test
+    public void shouldReportErrorFromUTF8Functions() {
+        ByteBuffer buffer = ByteBuffer.wrap("\"ab\\c\"".getBytes(StandardCharsets.UTF_8));
+        buffer.position(1);
+        JSONParseException e = assertThrows(JSONParseException.class, () -> JSONUTF8Functions.parseString(buffer));
+        assertEquals(JSONFunctions.ERROR_ILLEGAL_ESCAPE_SEQUENCE, e.getErrorCode());
+        assertEquals(4, e.getOffset());
+        assertEquals(5, buffer.position());
+        ByteBuffer buffer2 = ByteBuffer.wrap(new byte[] { 'a', (byte)0xC0, (byte)0x80, '"' });
+        e = assertThrows(JSONParseException.class, () -> JSONUTF8Functions.skipString(buffer2));
+        assertEquals(JSONFunctions.ERROR_ILLEGAL_UTF8_SEQUENCE, e.getErrorCode());
+        assertEquals(JSONFunctions.ILLEGAL_UTF8_SEQUENCE, e.getMessage());
+        assertEquals(1, e.getOffset());
+    }
+
+    @Test
+    public void shouldReportSameOffsetsForUTF8AsForText() {
+        String[] texts = { "\"ab\u0001\"", "\"ab\\c\"", "\"ab\\u12x4\"", "\"abc" };
+        for (String text : texts) {
+            TextMatcher tm = new TextMatcher(text);
+            tm.setIndex(1);
+            JSONParseException e1 = assertThrows(JSONParseException.class, () -> JSONFunctions.parseString(tm));
+            ByteBuffer buffer1 = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+            buffer1.position(1);
+            JSONParseException e2 = assertThrows(JSONParseException.class,
+                    () -> JSONUTF8Functions.parseString(buffer1));
+            assertEquals(e1.getErrorCode(), e2.getErrorCode());
+            assertEquals(e1.getOffset(), e2.getOffset());
+            ByteBuffer buffer2 = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+            buffer2.position(1);
+            JSONParseException e3 = assertThrows(JSONParseException.class,
+                    () -> JSONUTF8Functions.skipString(buffer2));
+            assertEquals(e1.getErrorCode(), e3.getErrorCode());
+            assertEquals(e1.getOffset(), e3.getOffset());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] { '"', 'a', (byte)0xE2, (byte)0x41, '"' });
+        buffer.position(1);
+        JSONParseException e = assertThrows(JSONParseException.class, () -> JSONUTF8Functions.parseString(buffer));
+        assertEquals(3, e.getOffset());
+    }
+
+    @Test
+    public void shouldReportErrorFromDecoder() {
+        JSONStringDecoder decoder = new JSONStringDecoder();
+        decoder.decode("ab\\u0");
+        JSONParseException e = assertThrows(JSONParseException.class, () -> decoder.decode("0x0\""));
+        assertEquals(JSONFunctions.ERROR_ILLEGAL_UNICODE_SEQUENCE, e.getErrorCode());
+        assertEquals(1, e.getOffset());
+    }
+
+    @Test
+    public void shouldMapErrorCodesToMessages() {
+        assertEquals(JSONFunctions.ILLEGAL_CHAR, JSONParseException.getMessage(JSONFunctions.ERROR_ILLEGAL_CHAR));
+        assertEquals("JSON parse error 99", JSONParseException.getMessage(99));
+    }
+
+    private static void checkError(String text, int errorCode, int offset, String message) {
+        TextMatcher tm1 = new TextMatcher(text);
+        tm1.setIndex(1);
+        JSONParseException e = assertThrows(JSONParseException.class, () -> JSONFunctions.parseString(tm1));
+        assertEquals(errorCode, e.getErrorCode());
+        assertEquals(offset, e.getOffset());
+        assertEquals(message, e.getMessage());
+        TextMatcher tm2 = new TextMatcher(text);
+        tm2.setIndex(1);
+        e = assertThrows(JSONParseException.class, () -> JSONFunctions.skipString(tm2));
+        assertEquals(errorCode, e.getErrorCode());
+        assertEquals(offset, e.getOffset());
+        assertEquals(tm1.getIndex(), tm2.getIndex());
+        TextMatcher tm3 = new TextMatcher(text);
+        tm3.setIndex(1);
+        assertEquals(errorCode, JSONFunctions.validateString(tm3));
+        assertEquals(offset, tm3.getIndex());
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * @(#) JSONScannerTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+import io.jstuff.json.JSONEscapePolicy;
+import io.jstuff.json.JSONScanner;
+
+public class JSONScannerTest {
+
+    @Test
+    public void shouldScanStringForSpecialCharacters() {
+        assertEquals(5, JSONScanner.scanString("plain", 0, 5));
+        assertEquals(3, JSONScanner.scanString("abc\"def", 0, 7));
+        assertEquals(3, JSONScanner.scanString("abc\\def", 0, 7));
+        assertEquals(3, JSONScanner.scanString("abc\tdef", 0, 7));
+        assertEquals(7, JSONScanner.scanString("abc\"def\"", 4, 8));
+        assertEquals(6, JSONScanner.scanString("Müller\u0000", 0, 7));
+    }
+
+    @Test
+    public void shouldScanUTF8BytesForSpecialBytes() {
+        byte[] specials = { '"', '\\', 0, 0x1F, (byte)0x80, (byte)0xC3, (byte)0xFF };
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+            for (boolean direct : new boolean[] { false, true }) {
+                for (int length = 0; length < 40; length++) {
+                    byte[] bytes = new byte[length + 3];
+                    Arrays.fill(bytes, (byte)'a');
+                    bytes[0] = '"';
+                    bytes[1] = 0x7F;
+                    bytes[2] = ' ';
+                    ByteBuffer buffer = buffer(bytes, direct, order);
+                    assertEquals(bytes.length, JSONScanner.scanString(buffer, 1, bytes.length));
+                    for (int i = 1; i < bytes.length; i++) {
+                        for (byte special : specials) {
+                            byte saved = bytes[i];
+                            bytes[i] = special;
+                            buffer = buffer(bytes, direct, order);
+                            assertEquals(i, JSONScanner.scanString(buffer, 1, bytes.length));
+                            if (i > 1)
+                                assertEquals(i - 1, JSONScanner.scanString(buffer, 1, i - 1));
+                            bytes[i] = saved;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotReportCharactersAdjacentToSpecialValues() {
+        byte[] bytes = { '!', '#', '[', ']', 0x20, 0x7F, '0', '1', '!', '#', '[', ']', 0x20, 0x7F, 'A', 'B' };
+        assertEquals(bytes.length, JSONScanner.scanString(ByteBuffer.wrap(bytes), 0, bytes.length));
+    }
+
+    @Test
+    public void shouldScanForCharactersToBeEscaped() {
+        assertEquals(5, JSONScanner.scanUnescaped("plain", 0, 5, JSONEscapePolicy.DEFAULT));
+        assertEquals(1, JSONScanner.scanUnescaped("Müller", 0, 6, JSONEscapePolicy.DEFAULT));
+        assertEquals(6, JSONScanner.scanUnescaped("Müller", 0, 6, JSONEscapePolicy.INCLUDE_NON_ASCII));
+        assertEquals(3, JSONScanner.scanUnescaped(new StringBuilder("abc<d"), 0, 5, JSONEscapePolicy.HTML_SAFE));
+        assertEquals(5, JSONScanner.scanUnescaped(new StringBuilder("abc<d"), 0, 5, JSONEscapePolicy.DEFAULT));
+    }
+
+    @Test
+    public void shouldScanForNonSpaceCharacters() {
+        assertEquals(0, JSONScanner.scanSpaces("abc", 0, 3));
+        assertEquals(4, JSONScanner.scanSpaces(" \t\r\n{", 0, 5));
+        assertEquals(5, JSONScanner.scanSpaces("  \n  ", 0, 5));
+        assertEquals(2, JSONScanner.scanSpaces("  \u000B", 0, 3));
+        assertEquals(3, JSONScanner.scanSpaces(new StringBuilder("a  ]"), 1, 4));
+        assertEquals(2, JSONScanner.scanSpaces(new StringBuilder("  \u00A0"), 0, 3));
+    }
+
+    @Test
+    public void shouldScanUTF8BytesForNonSpaceBytes() {
+        byte[] nonSpaces = { 'a', '{', 0, 0x0B, 0x0C, 0x21, 0x1F, (byte)0xA0, (byte)0x8D, (byte)0xFF };
+        byte[] spaces = { ' ', '\t', '\n', '\r' };
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+            for (int length = 0; length < 40; length++) {
+                byte[] bytes = new byte[length + 1];
+                for (int i = 1; i < bytes.length; i++)
+                    bytes[i] = spaces[i & 3];
+                ByteBuffer buffer = buffer(bytes, false, order);
+                assertEquals(bytes.length, JSONScanner.scanSpaces(buffer, 1, bytes.length));
+                for (int i = 1; i < bytes.length; i++) {
+                    for (byte nonSpace : nonSpaces) {
+                        byte saved = bytes[i];
+                        bytes[i] = nonSpace;
+                        buffer = buffer(bytes, true, order);
+                        assertEquals(i, JSONScanner.scanSpaces(buffer, 1, bytes.length));
+                        bytes[i] = saved;
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldScanForStructuralCharacters() {
+        assertEquals(0, JSONScanner.scanStructural("{}", 0, 2));
+        assertEquals(6, JSONScanner.scanStructural("  true, false", 0, 13));
+        assertEquals(4, JSONScanner.scanStructural("1234\"", 0, 5));
+        assertEquals(5, JSONScanner.scanStructural("null ", 0, 5));
+        assertEquals(2, JSONScanner.scanStructural(new StringBuilder("\u00FF ]"), 0, 3));
+        assertEquals(2, JSONScanner.scanStructural(new StringBuilder("  :"), 1, 3));
+    }
+
+    @Test
+    public void shouldScanUTF8BytesForStructuralBytes() {
+        byte[] structurals = { '{', '}', '[', ']', ':', ',', '"' };
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+            for (int length = 0; length < 40; length++) {
+                byte[] bytes = new byte[length + 1];
+                Arrays.fill(bytes, (byte)'1');
+                bytes[0] = '[';
+                ByteBuffer buffer = buffer(bytes, false, order);
+                assertEquals(bytes.length, JSONScanner.scanStructural(buffer, 1, bytes.length));
+                for (int i = 1; i < bytes.length; i++) {
+                    for (byte structural : structurals) {
+                        byte saved = bytes[i];
+                        bytes[i] = structural;
+                        buffer = buffer(bytes, true, order);
+                        assertEquals(i, JSONScanner.scanStructural(buffer, 1, bytes.length));
+                        bytes[i] = saved;
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotReportBytesAdjacentToStructuralValues() {
+        byte[] bytes = { 'z', '|', '~', 'Z', '\\', '^', '9', ';', '+', '-', '!', '#', (byte)0xFB, (byte)0xDD, 0x1B,
+                0x3C };
+        assertEquals(bytes.length, JSONScanner.scanStructural(ByteBuffer.wrap(bytes), 0, bytes.length));
+        assertEquals(bytes.length, JSONScanner.scanStructural(ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN), 0,
+                bytes.length));
+    }
+
+    private static ByteBuffer buffer(byte[] bytes, boolean direct, ByteOrder order) {
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+        buffer.put(bytes);
+        buffer.clear();
+        buffer.order(order);
+        return buffer;
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * @(#) JSONStringCacheTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import io.jstuff.json.ConcurrentJSONStringCache;
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONStringCache;
+import io.jstuff.text.TextMatcher;
+
+public class JSONStringCacheTest {
+
+    @Test
+    public void shouldReturnSameStringForSameContent() {
+        JSONStringCache cache = new JSONStringCache();
+        String first = cache.get(new StringBuilder("name"));
+        assertEquals("name", first);
+        assertSame(first, cache.get(new StringBuilder("name")));
+        assertSame(first, cache.get("{\"name\":1}", 2, 6, "name".hashCode()));
+    }
+
+    @Test
+    public void shouldRoundCapacityToPowerOfTwo() {
+        assertEquals(1024, new JSONStringCache().getCapacity());
+        assertEquals(128, new JSONStringCache(100).getCapacity());
+        assertEquals(1, new JSONStringCache(1).getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> new JSONStringCache(0));
+        assertThrows(IllegalArgumentException.class, () -> new JSONStringCache(16, -1,
+                JSONStringCache.Eviction.REPLACE));
+    }
+
+    @Test
+    public void shouldNotCacheStringsLongerThanMaximum() {
+        JSONStringCache cache = new JSONStringCache(16, 4, JSONStringCache.Eviction.REPLACE);
+        String first = cache.get(new StringBuilder("abcde"));
+        assertNotSame(first, cache.get(new StringBuilder("abcde")));
+        String second = cache.get(new StringBuilder("abcd"));
+        assertSame(second, cache.get(new StringBuilder("abcd")));
+    }
+
+    @Test
+    public void shouldReplaceEntryOnCollisionWithReplacePolicy() {
+        JSONStringCache cache = new JSONStringCache(1, 64, JSONStringCache.Eviction.REPLACE);
+        String alpha = cache.get(new StringBuilder("alpha"));
+        String beta = cache.get(new StringBuilder("beta"));
+        assertSame(beta, cache.get(new StringBuilder("beta")));
+        assertNotSame(alpha, cache.get(new StringBuilder("alpha")));
+    }
+
+    @Test
+    public void shouldRetainEntryOnCollisionWithRetainPolicy() {
+        JSONStringCache cache = new JSONStringCache(1, 64, JSONStringCache.Eviction.RETAIN);
+        String alpha = cache.get(new StringBuilder("alpha"));
+        String beta = cache.get(new StringBuilder("beta"));
+        assertNotSame(beta, cache.get(new StringBuilder("beta")));
+        assertSame(alpha, cache.get(new StringBuilder("alpha")));
+        cache.clear();
+        assertNotSame(alpha, cache.get(new StringBuilder("alpha")));
+    }
+
+    @Test
+    public void shouldParseStringUsingCache() {
+        JSONStringCache cache = new JSONStringCache();
+        TextMatcher tm = new TextMatcher("{\"id\":1,\"id\":2,\"i\\u0064\":3}");
+        tm.setIndex(2);
+        String first = JSONFunctions.parseString(tm, cache);
+        assertEquals("id", first);
+        assertEquals(5, tm.getIndex());
+        tm.setIndex(9);
+        assertSame(first, JSONFunctions.parseString(tm, cache));
+        assertEquals(12, tm.getIndex());
+        tm.setIndex(16);
+        assertSame(first, JSONFunctions.parseString(tm, cache));
+        assertEquals(24, tm.getIndex());
+    }
+
+    @Test
+    public void shouldParseLongStringWithoutCaching() {
+        JSONStringCache cache = new JSONStringCache(16, 4, JSONStringCache.Eviction.REPLACE);
+        TextMatcher tm = new TextMatcher("\"longer string\"");
+        tm.setIndex(1);
+        assertEquals("longer string", JSONFunctions.parseString(tm, cache));
+        assertTrue(tm.isAtEnd());
+    }
+
+    @Test
+    public void shouldParseStringUsingCacheWithMaximumLengthLimit() {
+        JSONStringCache cache = new JSONStringCache(16, Integer.MAX_VALUE, JSONStringCache.Eviction.REPLACE);
+        TextMatcher tm = new TextMatcher("[\"name\",\"name\"]");
+        tm.setIndex(2);
+        String first = JSONFunctions.parseString(tm, cache);
+        assertEquals("name", first);
+        tm.setIndex(9);
+        assertSame(first, JSONFunctions.parseString(tm, cache));
+        assertEquals(14, tm.getIndex());
+    }
+
+    @Test
+    public void shouldReportErrorsWhenParsingUsingCache() {
+        JSONStringCache cache = new JSONStringCache();
+        TextMatcher tm1 = new TextMatcher("\"abc");
+        tm1.setIndex(1);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> JSONFunctions.parseString(tm1, cache));
+        assertEquals(JSONFunctions.UNTERMINATED_STRING, e.getMessage());
+        TextMatcher tm2 = new TextMatcher("\"ab\u0001\"");
+        tm2.setIndex(1);
+        e = assertThrows(IllegalArgumentException.class, () -> JSONFunctions.parseString(tm2, cache));
+        assertEquals(JSONFunctions.ILLEGAL_CHAR, e.getMessage());
+    }
+
+    @Test
+    public void shouldShareConcurrentCacheBetweenThreads() throws Exception {
+        ConcurrentJSONStringCache cache = new ConcurrentJSONStringCache(64, 16, JSONStringCache.Eviction.RETAIN);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String[]>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    String[] results = new String[1000];
+                    for (int i = 0; i < results.length; i++) {
+                        TextMatcher tm = new TextMatcher("\"key" + (i % 10) + "\"");
+                        tm.setIndex(1);
+                        results[i] = JSONFunctions.parseString(tm, cache);
+                    }
+                    return results;
+                }));
+            }
+            for (Future<String[]> future : futures) {
+                String[] results = future.get();
+                for (int i = 0; i < results.length; i++)
+                    assertEquals("key" + (i % 10), results[i]);
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        String key = cache.get(new StringBuilder("key3"));
+        assertSame(key, cache.get(new StringBuilder("key3")));
+    }
+
+}
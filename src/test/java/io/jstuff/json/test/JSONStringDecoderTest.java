@@ -0,0 +1,125 @@
+/*
+ * @(#) JSONStringDecoderTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.nio.CharBuffer;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONStringDecoder;
+
+public class JSONStringDecoderTest {
+
+    private static final String input = "abc\\\"d\\\\e\\/f\\bg\\fh\\ni\\rj\\tk\\u2014l\\uD83D\\uDE00m\"";
+    private static final String expected = "abc\"d\\e/f\bg\fh\ni\rj\tk—l😀m";
+
+    @Test
+    public void shouldDecodeStringInSingleChunk() {
+        JSONStringDecoder decoder = new JSONStringDecoder();
+        assertEquals(input.length(), decoder.decode(input));
+        assertTrue(decoder.isComplete());
+        assertEquals(expected, decoder.getResult());
+    }
+
+    @Test
+    public void shouldDecodeStringSplitAtAnyPoint() {
+        for (int split = 0; split < input.length(); split++) {
+            JSONStringDecoder decoder = new JSONStringDecoder();
+            assertEquals(-1, decoder.decode(input, 0, split));
+            assertFalse(decoder.isComplete());
+            assertEquals(input.length(), decoder.decode(input, split, input.length()));
+            assertEquals(expected, decoder.getResult());
+        }
+    }
+
+    @Test
+    public void shouldDecodeStringOneCharacterAtATime() {
+        JSONStringDecoder decoder = new JSONStringDecoder();
+        for (int i = 0; i < input.length() - 1; i++)
+            assertEquals(-1, decoder.decode(CharBuffer.wrap(input, i, i + 1)));
+        assertEquals(1, decoder.decode(CharBuffer.wrap(input, input.length() - 1, input.length())));
+        assertEquals(expected, decoder.getResult());
+    }
+
+    @Test
+    public void shouldReturnIndexFollowingClosingQuote() {
+        JSONStringDecoder decoder = new JSONStringDecoder();
+        assertEquals(-1, decoder.decode("{\"ab", 2, 4));
+        assertEquals(3, decoder.decode("cd\",\"next\"}"));
+        assertEquals("abcd", decoder.getResult());
+    }
+
+    @Test
+    public void shouldDecodeIntoSuppliedStringBuilder() {
+        StringBuilder sb = new StringBuilder("x=");
+        JSONStringDecoder decoder = new JSONStringDecoder(sb);
+        decoder.decode("abc\"");
+        assertEquals("x=abc", sb.toString());
+        decoder.reset();
+        assertFalse(decoder.isComplete());
+        decoder.decode("def\"");
+        assertEquals("def", decoder.getResult());
+    }
+
+    @Test
+    public void shouldReportUnterminatedString() {
+        JSONStringDecoder decoder = new JSONStringDecoder();
+        decoder.decode("abc\\u00");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, decoder::getResult);
+        assertEquals(JSONFunctions.UNTERMINATED_STRING, e.getMessage());
+    }
+
+    @Test
+    public void shouldReportErrorsSplitAcrossChunks() {
+        JSONStringDecoder decoder1 = new JSONStringDecoder();
+        decoder1.decode("abc\\u00");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> decoder1.decode("xy\""));
+        assertEquals(JSONFunctions.ILLEGAL_UNICODE_SEQUENCE, e.getMessage());
+        JSONStringDecoder decoder2 = new JSONStringDecoder();
+        decoder2.decode("abc\\");
+        e = assertThrows(IllegalArgumentException.class, () -> decoder2.decode("x\""));
+        assertEquals(JSONFunctions.ILLEGAL_ESCAPE_SEQUENCE, e.getMessage());
+        JSONStringDecoder decoder3 = new JSONStringDecoder();
+        e = assertThrows(IllegalArgumentException.class, () -> decoder3.decode("ab\u0001\""));
+        assertEquals(JSONFunctions.ILLEGAL_CHAR, e.getMessage());
+        JSONStringDecoder decoder4 = new JSONStringDecoder();
+        e = assertThrows(IllegalArgumentException.class, () -> decoder4.decode("\\u00\uFF11\uFF12\""));
+        assertEquals(JSONFunctions.ILLEGAL_UNICODE_SEQUENCE, e.getMessage());
+    }
+
+    @Test
+    public void shouldRejectInputAfterCompletion() {
+        JSONStringDecoder decoder = new JSONStringDecoder();
+        decoder.decode("abc\"");
+        assertThrows(IllegalStateException.class, () -> decoder.decode("more"));
+    }
+
+}
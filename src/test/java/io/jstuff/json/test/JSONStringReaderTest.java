@@ -0,0 +1,120 @@
+/*
+ * @(#) JSONStringReaderTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONParseException;
+import io.jstuff.json.JSONStringReader;
+
+public class JSONStringReaderTest {
+
+    @Test
+    public void shouldDecodeString() throws IOException {
+        JSONStringReader reader = new JSONStringReader(new StringReader("abc\\n\\u00e9\\\"def\""));
+        assertEquals("abc\né\"def", readAll(reader, 100));
+        assertTrue(reader.isComplete());
+        assertEquals(-1, reader.read());
+    }
+
+    @Test
+    public void shouldDecodeStringWithEscapesSplitBetweenBlocks() throws IOException {
+        String json = "x\\u00e9\\n\\\\\\/y\"";
+        for (int blockSize = 1; blockSize < 8; blockSize++) {
+            JSONStringReader reader = new JSONStringReader(new StringReader(json), blockSize);
+            assertEquals("xé\n\\/y", readAll(reader, 3));
+        }
+    }
+
+    @Test
+    public void shouldLeaveMarkableReaderAfterClosingQuote() throws IOException {
+        BufferedReader in = new BufferedReader(new StringReader("abc\",\"def\"]"));
+        JSONStringReader reader = new JSONStringReader(in, 100);
+        assertEquals("abc", readAll(reader, 10));
+        assertEquals(',', in.read());
+        assertEquals('"', in.read());
+        assertEquals("def", readAll(new JSONStringReader(in), 10));
+        assertEquals(']', in.read());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void shouldDecodeLongStringInBlocks() throws IOException {
+        Random random = new Random(13579);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            int r = random.nextInt(40);
+            sb.append(r == 0 ? '\n' : r == 1 ? '"' : r == 2 ? 'é' : (char)('a' + r));
+        }
+        String str = sb.toString();
+        String json = JSONFunctions.escapeString(str, false);
+        Reader in = new StringReader(json);
+        assertEquals('"', in.read());
+        JSONStringReader reader = new JSONStringReader(in, 1000);
+        assertEquals(str, readAll(reader, 777));
+    }
+
+    @Test
+    public void shouldReportErrors() {
+        JSONStringReader reader1 = new JSONStringReader(new StringReader("abc"));
+        JSONParseException e = assertThrows(JSONParseException.class, () -> readAll(reader1, 10));
+        assertEquals(JSONFunctions.ERROR_UNTERMINATED_STRING, e.getErrorCode());
+        JSONStringReader reader2 = new JSONStringReader(new StringReader("a\\x\""));
+        e = assertThrows(JSONParseException.class, () -> readAll(reader2, 10));
+        assertEquals(JSONFunctions.ERROR_ILLEGAL_ESCAPE_SEQUENCE, e.getErrorCode());
+    }
+
+    @Test
+    public void shouldRejectReadAfterClose() throws IOException {
+        JSONStringReader reader = new JSONStringReader(new StringReader("abc\""));
+        assertFalse(reader.ready());
+        assertEquals('a', reader.read());
+        assertTrue(reader.ready());
+        reader.close();
+        assertThrows(IOException.class, reader::read);
+    }
+
+    private static String readAll(Reader reader, int size) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[size];
+        int n;
+        while ((n = reader.read(buffer, 0, size)) >= 0)
+            sb.append(buffer, 0, n);
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * @(#) JSONStringViewTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONStringView;
+import io.jstuff.text.TextMatcher;
+
+public class JSONStringViewTest {
+
+    @Test
+    public void shouldCreateViewOfUnescapedString() {
+        TextMatcher tm = new TextMatcher("{\"name\":1}");
+        tm.setIndex(2);
+        JSONStringView view = JSONFunctions.parseStringView(tm);
+        assertEquals(7, tm.getIndex());
+        assertEquals(6, tm.getStart());
+        assertFalse(view.hasEscapes());
+        assertEquals(4, view.length());
+        assertEquals('a', view.charAt(1));
+        assertEquals("am", view.subSequence(1, 3).toString());
+        assertEquals("name", view.toString());
+        assertEquals("name".hashCode(), view.hashCode());
+        assertTrue(view.contentEquals("name"));
+        assertFalse(view.contentEquals("nam"));
+    }
+
+    @Test
+    public void shouldCreateViewOfEscapedString() {
+        TextMatcher tm = new TextMatcher("\"tab\\there \\u2014 \\\"q\\\"\"");
+        tm.setIndex(1);
+        JSONStringView view = JSONFunctions.parseStringView(tm);
+        assertTrue(tm.isAtEnd());
+        assertTrue(view.hasEscapes());
+        String expected = "tab\there — \"q\"";
+        assertEquals(expected.length(), view.length());
+        assertEquals('\t', view.charAt(3));
+        assertEquals("—", view.subSequence(9, 10).toString());
+        assertEquals(expected, view.toString());
+        assertEquals(expected.hashCode(), view.hashCode());
+        assertTrue(view.contentEquals(expected));
+    }
+
+    @Test
+    public void shouldCompareViewsByDecodedContent() {
+        TextMatcher tm = new TextMatcher("\"abc\",\"a\\u0062c\",\"abd\"");
+        tm.setIndex(1);
+        JSONStringView view1 = JSONFunctions.parseStringView(tm);
+        tm.setIndex(7);
+        JSONStringView view2 = JSONFunctions.parseStringView(tm);
+        tm.setIndex(18);
+        JSONStringView view3 = JSONFunctions.parseStringView(tm);
+        assertEquals(view1, view2);
+        assertEquals(view1.hashCode(), view2.hashCode());
+        assertNotEquals(view1, view3);
+    }
+
+    @Test
+    public void shouldAppendOriginalJSON() throws IOException {
+        TextMatcher tm = new TextMatcher("[\"a\\u0062c\\n\"]");
+        tm.setIndex(2);
+        JSONStringView view = JSONFunctions.parseStringView(tm);
+        StringBuilder sb = new StringBuilder();
+        view.appendJSON(sb);
+        assertEquals("\"a\\u0062c\\n\"", sb.toString());
+    }
+
+    @Test
+    public void shouldValidateStringWhenCreatingView() {
+        TextMatcher tm = new TextMatcher("\"ab\\x\"");
+        tm.setIndex(1);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> JSONFunctions.parseStringView(tm));
+        assertEquals(JSONFunctions.ILLEGAL_ESCAPE_SEQUENCE, e.getMessage());
+    }
+
+    @Test
+    public void shouldThrowExceptionOnIndexOutOfRange() {
+        TextMatcher tm = new TextMatcher("\"abc\"");
+        tm.setIndex(1);
+        JSONStringView view = JSONFunctions.parseStringView(tm);
+        assertThrows(IndexOutOfBoundsException.class, () -> view.charAt(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.subSequence(2, 4));
+    }
+
+}
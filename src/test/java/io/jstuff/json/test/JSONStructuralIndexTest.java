@@ -0,0 +1,123 @@
+/*
+ * @(#) JSONStructuralIndexTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONParseException;
+import io.jstuff.json.JSONStructuralIndex;
+
+public class JSONStructuralIndexTest {
+
+    private static final String json = "{\"a\": [1, 2], \"b\\\"}[\": {\"c\":null}}";
+    private static final int[] expected = { 0, 1, 4, 6, 8, 11, 12, 14, 21, 23, 24, 27, 32, 33 };
+
+    @Test
+    public void shouldIndexStructuralCharacters() {
+        JSONStructuralIndex index = new JSONStructuralIndex(json);
+        assertArrayEquals(expected, index.getPositions());
+        assertEquals(14, index.size());
+        assertEquals(6, index.getPosition(3));
+        assertEquals('[', json.charAt(index.getPosition(3)));
+        assertEquals(33, index.getPosition(13));
+    }
+
+    @Test
+    public void shouldIndexStructuralCharactersInCharSequence() {
+        JSONStructuralIndex index = new JSONStructuralIndex(new StringBuilder(json));
+        assertArrayEquals(expected, index.getPositions());
+    }
+
+    @Test
+    public void shouldIndexPortionOfText() {
+        JSONStructuralIndex index = new JSONStructuralIndex(json, 6, 12);
+        assertArrayEquals(new int[] { 6, 8, 11 }, index.getPositions());
+    }
+
+    @Test
+    public void shouldIndexStructuralBytes() {
+        ByteBuffer buffer = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+        JSONStructuralIndex index = new JSONStructuralIndex(buffer);
+        assertArrayEquals(expected, index.getPositions());
+        assertEquals(0, buffer.position());
+        buffer = ByteBuffer.wrap("[\"déjà vu\",{}]".getBytes(StandardCharsets.UTF_8));
+        index = new JSONStructuralIndex(buffer);
+        assertArrayEquals(new int[] { 0, 1, 12, 13, 14, 15 }, index.getPositions());
+    }
+
+    @Test
+    public void shouldFindEntryForPosition() {
+        JSONStructuralIndex index = new JSONStructuralIndex(json);
+        assertEquals(0, index.findEntry(0));
+        assertEquals(4, index.findEntry(7));
+        assertEquals(4, index.findEntry(8));
+        assertEquals(5, index.findEntry(9));
+        assertEquals(14, index.findEntry(34));
+    }
+
+    @Test
+    public void shouldGrowForLargeInput() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            if (i > 0)
+                sb.append(',');
+            sb.append(i);
+        }
+        sb.append(']');
+        JSONStructuralIndex index = new JSONStructuralIndex(sb);
+        assertEquals(1001, index.size());
+        assertEquals(sb.length() - 1, index.getPosition(1000));
+        assertEquals(index.size(), new JSONStructuralIndex(
+                ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8))).size());
+    }
+
+    @Test
+    public void shouldRejectUnterminatedString() {
+        JSONParseException e = assertThrows(JSONParseException.class, () -> new JSONStructuralIndex("[\"abc"));
+        assertEquals(JSONFunctions.ERROR_UNTERMINATED_STRING, e.getErrorCode());
+        assertEquals(5, e.getOffset());
+        e = assertThrows(JSONParseException.class, () -> new JSONStructuralIndex("\"abc\\\""));
+        assertEquals(6, e.getOffset());
+        e = assertThrows(JSONParseException.class,
+                () -> new JSONStructuralIndex(ByteBuffer.wrap(new byte[] { '{', '"', 'a', '\\' })));
+        assertEquals(4, e.getOffset());
+    }
+
+    @Test
+    public void shouldRejectInvalidEntryIndex() {
+        JSONStructuralIndex index = new JSONStructuralIndex("[]");
+        assertThrows(IndexOutOfBoundsException.class, () -> index.getPosition(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> index.getPosition(-1));
+    }
+
+}
@@ -0,0 +1,437 @@
+/*
+ * @(#) JSONUTF8FunctionsTest.java
+ *
+ * json-functions  Functions for use in JSON parsing and formatting
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jstuff.json.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+
+import io.jstuff.json.JSONEscapeException;
+import io.jstuff.json.JSONEscapePolicy;
+import io.jstuff.json.JSONFunctions;
+import io.jstuff.json.JSONParseException;
+import io.jstuff.json.JSONSurrogatePolicy;
+import io.jstuff.json.JSONUTF8Functions;
+
+public class JSONUTF8FunctionsTest {
+
+    private static final String[] testStrings = {
+            "",
+            "hello",
+            "hello\n",
+            "mdash — \r\n",
+            "tab\tquote\" backslash\\ control\u0001 del\u007F nbsp ",
+            "Müller Straße",
+            "emoji 😀 end",
+            "lone high \uD800 lone low \uDC00 reversed \uDC00\uD800",
+            "trailing high \uD83D",
+    };
+
+    @Test
+    public void shouldStoreStringInByteArray() {
+        for (String str : testStrings) {
+            for (boolean includeNonASCII : new boolean[] { false, true }) {
+                byte[] expected = expectedBytes(str, includeNonASCII);
+                byte[] array = new byte[expected.length + 5];
+                int end = JSONUTF8Functions.appendString(array, 3, str, includeNonASCII);
+                assertEquals(expected.length + 3, end);
+                byte[] actual = new byte[expected.length];
+                System.arraycopy(array, 3, actual, 0, expected.length);
+                assertArrayEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void shouldEncodeSurrogatePairAsFourByteSequence() {
+        byte[] array = new byte[10];
+        int end = JSONUTF8Functions.appendString(array, 0, "😀", true);
+        assertEquals(6, end);
+        assertArrayEquals(new byte[] { '"', (byte)0xF0, (byte)0x9F, (byte)0x98, (byte)0x80, '"' },
+                Arrays.copyOf(array, end));
+    }
+
+    @Test
+    public void shouldEscapeUnpairedSurrogate() {
+        byte[] array = new byte[20];
+        int end = JSONUTF8Functions.appendString(array, 0, "a\uD800b", true);
+        assertEquals("\"a\\ud800b\"", new String(array, 0, end, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenByteArrayTooSmall() {
+        byte[] array = new byte[6];
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> JSONUTF8Functions.appendString(array, 0, "hello", false));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> JSONUTF8Functions.appendString(array, 7, "", false));
+    }
+
+    @Test
+    public void shouldStoreStringInHeapByteBuffer() {
+        for (String str : testStrings) {
+            for (boolean includeNonASCII : new boolean[] { false, true }) {
+                byte[] expected = expectedBytes(str, includeNonASCII);
+                ByteBuffer buffer = ByteBuffer.allocate(expected.length + 10);
+                buffer.position(2);
+                ByteBuffer slice = buffer.slice();
+                slice.put((byte)'x');
+                assertEquals(expected.length, JSONUTF8Functions.appendString(slice, str, includeNonASCII));
+                assertEquals(expected.length + 1, slice.position());
+                byte[] actual = new byte[expected.length];
+                slice.position(1);
+                slice.get(actual);
+                assertArrayEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void shouldStoreStringInDirectByteBuffer() {
+        String str = repeat("long string with escapes \t—😀 ", 100);
+        for (boolean includeNonASCII : new boolean[] { false, true }) {
+            byte[] expected = expectedBytes(str, includeNonASCII);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(expected.length + 10);
+            assertEquals(expected.length, JSONUTF8Functions.appendString(buffer, str, includeNonASCII));
+            assertEquals(expected.length, buffer.position());
+            byte[] actual = new byte[expected.length];
+            buffer.flip();
+            buffer.get(actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenByteBufferTooSmall() {
+        ByteBuffer heapBuffer = ByteBuffer.allocate(20);
+        heapBuffer.limit(6);
+        assertThrows(BufferOverflowException.class, () -> JSONUTF8Functions.appendString(heapBuffer, "hello", false));
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(6);
+        assertThrows(BufferOverflowException.class, () -> JSONUTF8Functions.appendString(directBuffer, "hello", false));
+    }
+
+    @Test
+    public void shouldWriteStringToOutputStream() throws IOException {
+        String longString = repeat("abcé—😀\n", 200);
+        for (String str : new String[] { "", "hello", "mdash — \r\n", longString }) {
+            for (boolean includeNonASCII : new boolean[] { false, true }) {
+                byte[] expected = expectedBytes(str, includeNonASCII);
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                assertEquals(expected.length, JSONUTF8Functions.writeString(baos, str, includeNonASCII));
+                assertArrayEquals(expected, baos.toByteArray());
+            }
+        }
+    }
+
+    @Test
+    public void shouldCalculateEscapedLength() {
+        String[] strings = { "", "plain", "tab\there\n", "Müller Straße", "mdash — emoji 😀", "a<b>&c/",
+                "\u0001\u007F\u0080", "\u2028 \uD800 \uDC00\uD800" };
+        JSONEscapePolicy[] policies = { JSONEscapePolicy.DEFAULT, JSONEscapePolicy.INCLUDE_NON_ASCII,
+                JSONEscapePolicy.HTML_SAFE, JSONEscapePolicy.JAVASCRIPT_SAFE, JSONEscapePolicy.ESCAPE_SLASH };
+        byte[] array = new byte[200];
+        for (String str : strings) {
+            for (JSONEscapePolicy policy : policies) {
+                assertEquals(JSONUTF8Functions.appendString(array, 0, str, policy) - 2,
+                        JSONUTF8Functions.escapedLength(str, policy));
+            }
+            assertEquals(JSONUTF8Functions.appendString(array, 0, str, true) - 2,
+                    JSONUTF8Functions.escapedLength(str, true));
+        }
+    }
+
+    @Test
+    public void shouldParseSimpleString() {
+        ByteBuffer buffer = utf8("\"simple\"");
+        buffer.position(1);
+        assertEquals("simple", JSONUTF8Functions.parseString(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void shouldParseStringWithEscapeSequences() {
+        ByteBuffer buffer = utf8("\"tab\\tnewline\\nquote\\\" \\/\\b\\f\\r\" rest");
+        buffer.position(1);
+        assertEquals("tab\tnewline\nquote\" /\b\f\r", JSONUTF8Functions.parseString(buffer));
+        assertEquals(' ', buffer.get());
+    }
+
+    @Test
+    public void shouldParseStringWithUnicodeEscapeSequence() {
+        ByteBuffer buffer = utf8("\"mdash \\u2014 \\uD83D\\ude00\"");
+        buffer.position(1);
+        assertEquals("mdash \u2014 \uD83D\uDE00", JSONUTF8Functions.parseString(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void shouldParseStringWithMultiByteCharacters() {
+        String[] strings = { "Müller Straße", "mdash —", "emoji 😀", "Müller\\nStraße —😀" };
+        String[] expected = { "Müller Straße", "mdash —", "emoji 😀", "Müller\nStraße —😀" };
+        for (int i = 0; i < strings.length; i++) {
+            ByteBuffer buffer = utf8("\"" + strings[i] + "\"");
+            buffer.position(1);
+            assertEquals(expected[i], JSONUTF8Functions.parseString(buffer));
+            assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    @Test
+    public void shouldParseStringFromDirectByteBuffer() {
+        byte[] bytes = "xx\"plain\",\"Müller\\tStraße\"".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.position(3);
+        assertEquals("plain", JSONUTF8Functions.parseString(buffer));
+        assertEquals(9, buffer.position());
+        buffer.position(11);
+        assertEquals("Müller\tStraße", JSONUTF8Functions.parseString(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void shouldParseStringFromWrappedByteArray() {
+        byte[] bytes = "[\"alpha\",\"beta\"]".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 10, bytes.length - 10);
+        assertEquals("beta", JSONUTF8Functions.parseString(buffer));
+        assertEquals(15, buffer.position());
+    }
+
+    @Test
+    public void shouldParseStringFromMappedFile() throws IOException {
+        Path path = Files.createTempFile("json-functions", ".json");
+        try {
+            Files.write(path, "{\"key\":\"Müller \\u2014 Straße\"}".getBytes(StandardCharsets.UTF_8));
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                buffer.position(2);
+                assertEquals("key", JSONUTF8Functions.parseString(buffer));
+                buffer.position(buffer.position() + 2);
+                assertEquals("Müller \u2014 Straße", JSONUTF8Functions.parseString(buffer));
+                assertEquals('}', buffer.get());
+            }
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void shouldSkipStringReturningDecodedLength() {
+        String[] strings = { "", "simple", "tab\\tnewline\\n", "mdash \\u2014 \\uD83D\\ude00", "Müller Straße —😀" };
+        for (String str : strings) {
+            ByteBuffer buffer = utf8("\"" + str + "\",");
+            buffer.position(1);
+            String parsed = JSONUTF8Functions.parseString(buffer);
+            int position = buffer.position();
+            buffer.position(1);
+            assertEquals(parsed.length(), JSONUTF8Functions.skipString(buffer));
+            assertEquals(position, buffer.position());
+            assertEquals(',', buffer.get());
+        }
+    }
+
+    @Test
+    public void shouldReportSameErrorsFromSkipStringAsParseString() {
+        byte[][] invalid = {
+                { 'a', 'b', 'c' },
+                { 'a', '\\', 'c', '"' },
+                { 'a', '\\', 'u', '1', 'x', '"' },
+                { 'a', 0x01, '"' },
+                { 'a', (byte)0x80, '"' },
+                { (byte)0xC0, (byte)0x80, '"' },
+                { 'a', (byte)0xE2, (byte)0x80 },
+        };
+        for (byte[] bytes : invalid) {
+            ByteBuffer buffer1 = ByteBuffer.wrap(bytes);
+            IllegalArgumentException e1 = assertThrows(IllegalArgumentException.class,
+                    () -> JSONUTF8Functions.parseString(buffer1));
+            ByteBuffer buffer2 = ByteBuffer.wrap(bytes);
+            IllegalArgumentException e2 = assertThrows(IllegalArgumentException.class,
+                    () -> JSONUTF8Functions.skipString(buffer2));
+            assertEquals(e1.getMessage(), e2.getMessage());
+            assertEquals(buffer1.position(), buffer2.position());
+        }
+    }
+
+    @Test
+    public void shouldThrowExceptionOnMissingClosingQuote() {
+        ByteBuffer buffer = utf8("\"abc");
+        buffer.position(1);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> JSONUTF8Functions.parseString(buffer));
+        assertEquals(JSONFunctions.UNTERMINATED_STRING, e.getMessage());
+        assertEquals(4, buffer.position());
+    }
+
+    @Test
+    public void shouldThrowExceptionOnBadEscapeSequence() {
+        ByteBuffer buffer = utf8("\"ab\\c\"");
+        buffer.position(1);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> JSONUTF8Functions.parseString(buffer));
+        assertEquals(JSONFunctions.ILLEGAL_ESCAPE_SEQUENCE, e.getMessage());
+        assertEquals(5, buffer.position());
+    }
+
+    @Test
+    public void shouldThrowExceptionOnBadUnicodeSequence() {
+        ByteBuffer buffer = utf8("\"ab\\u12x4\"");
+        buffer.position(1);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> JSONUTF8Functions.parseString(buffer));
+        assertEquals(JSONFunctions.ILLEGAL_UNICODE_SEQUENCE, e.getMessage());        assertEquals(7, buffer.position());
+    }
+
+    @Test
+    public void shouldThrowExceptionOnIllegalCharacter() {
+        ByteBuffer buffer = utf8("\"ab\u0001\"");
+        buffer.position(1);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> JSONUTF8Functions.parseString(buffer));
+        assertEquals(JSONFunctions.ILLEGAL_CHAR, e.getMessage());
+        assertEquals(4, buffer.position());
+    }
+
+    @Test
+    public void shouldThrowExceptionOnInvalidUTF8() {
+        byte[][] invalid = {
+                { 'a', (byte)0x80, '"' }, // unexpected continuation byte
+                { 'a', (byte)0xC3, 'b', '"' }, // missing continuation byte
+                { (byte)0xC0, (byte)0x80, '"' }, // overlong 2-byte form
+                { (byte)0xE0, (byte)0x80, (byte)0x80, '"' }, // overlong 3-byte form
+                { (byte)0xED, (byte)0xA0, (byte)0x80, '"' }, // encoded surrogate
+                { (byte)0xF4, (byte)0x90, (byte)0x80, (byte)0x80, '"' }, // above U+10FFFF
+                { (byte)0xF5, (byte)0x80, (byte)0x80, (byte)0x80, '"' }, // invalid first byte
+                { '\\', 'n', (byte)0xFF, '"' }, // invalid byte after escape sequence
+        };
+        for (byte[] bytes : invalid) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> JSONUTF8Functions.parseString(ByteBuffer.wrap(bytes)));
+            assertEquals(JSONFunctions.ILLEGAL_UTF8_SEQUENCE, e.getMessage());
+        }
+    }
+
+    private static ByteBuffer utf8(String str) {
+        return ByteBuffer.wrap(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] expectedBytes(String str, boolean includeNonASCII) {
+        StringBuilder sb = new StringBuilder();
+        sb.append('"');
+        for (int i = 0, n = str.length(); i < n; i++) {
+            char ch = str.charAt(i);
+            if (Character.isHighSurrogate(ch) && i + 1 < n && Character.isLowSurrogate(str.charAt(i + 1)) &&
+                    includeNonASCII) {
+                sb.append(ch).append(str.charAt(++i));
+            }
+            else if (Character.isSurrogate(ch))
+                sb.append(String.format("\\u%04x", (int)ch));
+            else
+                sb.append(JSONFunctions.escapeStringUnquoted(String.valueOf(ch), includeNonASCII));
+        }
+        sb.append('"');
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String repeat(String str, int n) {
+        StringBuilder sb = new StringBuilder(str.length() * n);
+        for (int i = 0; i < n; i++)
+            sb.append(str);
+        return sb.toString();
+    }
+
+    @Test
+    public void shouldSkipSpaces() {
+        ByteBuffer buffer = ByteBuffer.wrap("[   \n\t\r\n      \n 123 ]".getBytes(StandardCharsets.UTF_8));
+        buffer.position(1);
+        JSONUTF8Functions.skipSpaces(buffer);
+        assertEquals(16, buffer.position());
+        JSONUTF8Functions.skipSpaces(buffer);
+        assertEquals(16, buffer.position());
+        buffer.position(19);
+        JSONUTF8Functions.skipSpaces(buffer);
+        assertEquals(20, buffer.position());
+        buffer.position(21);
+        JSONUTF8Functions.skipSpaces(buffer);
+        assertEquals(21, buffer.position());
+    }
+
+    @Test
+    public void shouldApplySurrogatePolicyWhenEncoding() {
+        String str = "a\uD800b\uD83D\uDE00\uDC00";
+        JSONEscapePolicy policy = JSONEscapePolicy.INCLUDE_NON_ASCII.withSurrogatePolicy(JSONSurrogatePolicy.REPLACE);
+        checkEncoded("\"a\uFFFDb\uD83D\uDE00\uFFFD\"", str, policy);
+        policy = JSONEscapePolicy.DEFAULT.withSurrogatePolicy(JSONSurrogatePolicy.REPLACE);
+        checkEncoded("\"a\\ufffdb\\ud83d\\ude00\\ufffd\"", str, policy);
+        checkEncoded("\"a\\ud800b\uD83D\uDE00\\udc00\"", str, JSONEscapePolicy.INCLUDE_NON_ASCII);
+        JSONEscapePolicy rejectPolicy = JSONEscapePolicy.INCLUDE_NON_ASCII.withSurrogatePolicy(
+                JSONSurrogatePolicy.REJECT);
+        checkEncoded("\"\uD83D\uDE00\"", "\uD83D\uDE00", rejectPolicy);
+        JSONEscapeException e = assertThrows(JSONEscapeException.class,
+                () -> JSONUTF8Functions.appendString(new byte[20], 0, "x\uD83D", rejectPolicy));
+        assertEquals(JSONFunctions.LONE_SURROGATE, e.getMessage());
+        assertEquals(1, e.getOffset());
+        e = assertThrows(JSONEscapeException.class, () -> JSONUTF8Functions.escapedLength("\uDE00", rejectPolicy));
+        assertEquals(0, e.getOffset());
+    }
+
+    @Test
+    public void shouldApplySurrogatePolicyWhenParsing() {
+        ByteBuffer buffer = ByteBuffer.wrap("\"\\uD83D\\uDE00x\\uDC00\\uD800\\n\",".getBytes(StandardCharsets.UTF_8));
+        buffer.position(1);
+        assertEquals("\uD83D\uDE00x\uFFFD\uFFFD\n", JSONUTF8Functions.parseString(buffer, JSONSurrogatePolicy.REPLACE));
+        assertEquals(buffer.limit() - 1, buffer.position());
+        buffer.position(1);
+        assertEquals("\uD83D\uDE00x\uDC00\uD800\n", JSONUTF8Functions.parseString(buffer, JSONSurrogatePolicy.PASS));
+        buffer.position(1);
+        JSONParseException e = assertThrows(JSONParseException.class,
+                () -> JSONUTF8Functions.parseString(buffer, JSONSurrogatePolicy.REJECT));
+        assertEquals(JSONFunctions.ERROR_LONE_SURROGATE, e.getErrorCode());
+        assertEquals(14, e.getOffset());
+    }
+
+    private static void checkEncoded(String expected, String str, JSONEscapePolicy policy) {
+        byte[] expectedBytes = expected.getBytes(StandardCharsets.UTF_8);
+        byte[] array = new byte[expectedBytes.length + 4];
+        assertEquals(expectedBytes.length, JSONUTF8Functions.appendString(array, 0, str, policy));
+        assertArrayEquals(expectedBytes, Arrays.copyOf(array, expectedBytes.length));
+        assertEquals(expectedBytes.length - 2, JSONUTF8Functions.escapedLength(str, policy));
+    }
+
+}